@@ -0,0 +1,78 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.benchmarks;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.nodyn.buffer.Buffer;
+import org.dynjs.runtime.DynObject;
+import org.dynjs.runtime.JSObject;
+
+/**
+ * Builds the script-side Buffer objects the benchmarks operate on.
+ *
+ * @author Bob McWhirter
+ */
+public class Buffers {
+
+    public static ByteBuf allocate(String memory, int size) {
+        if ("direct".equals(memory)) {
+            return Unpooled.directBuffer(size, size);
+        }
+        return Unpooled.buffer(size, size);
+    }
+
+    public static JSObject wrap(ByteBuf buf) {
+        JSObject obj = create(buf.capacity());
+        Buffer.inject(obj, buf);
+        return obj;
+    }
+
+    public static JSObject create(int length) {
+        JSObject obj = new DynObject();
+        obj.put(null, "length", (long) length, false);
+        return obj;
+    }
+
+    public static String ascii(int length) {
+        StringBuilder str = new StringBuilder(length);
+        for (int i = 0; i < length; ++i) {
+            str.append((char) ('a' + (i % 26)));
+        }
+        return str.toString();
+    }
+
+    /**
+     * Mostly ascii, with a two- and a three-byte character every 16 chars.
+     */
+    public static String utf8(int length) {
+        StringBuilder str = new StringBuilder(length);
+        for (int i = 0; i < length; ++i) {
+            switch (i % 16) {
+                case 7:
+                    str.append('é');
+                    break;
+                case 15:
+                    str.append('€');
+                    break;
+                default:
+                    str.append((char) ('a' + (i % 26)));
+            }
+        }
+        return str.toString();
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.benchmarks;
+
+import io.nodyn.buffer.Buffer;
+import org.dynjs.runtime.JSObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * String encoding and decoding through io.nodyn.buffer.Buffer, for each
+ * encoding node supports.
+ *
+ * @author Bob McWhirter
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodingBenchmark {
+
+    @Param({"16", "256", "4096"})
+    public int size;
+
+    @Param({"heap", "direct"})
+    public String memory;
+
+    private JSObject buffer;
+    private int encodedLength;
+
+    private String ascii;
+    private String utf8;
+    private String hex;
+    private String base64;
+
+    @Setup
+    public void setup() {
+        // room for the widest encoding, ucs2 or three-byte utf8
+        this.buffer = Buffers.wrap( Buffers.allocate( this.memory, this.size * 3 ) );
+        this.ascii = Buffers.ascii( this.size );
+        this.utf8 = Buffers.utf8( this.size );
+
+        Buffer.asciiWrite( this.buffer, this.ascii, 0, this.size );
+        this.hex = Buffer.hexSlice( this.buffer, 0, this.size );
+        this.base64 = Buffer.base64Slice( this.buffer, 0, this.size );
+        this.encodedLength = (int) Buffer.utf8Write( this.buffer, this.utf8, 0, this.size * 3 )[1];
+    }
+
+    @Benchmark
+    public long[] utf8Write() {
+        return Buffer.utf8Write( this.buffer, this.utf8, 0, this.size * 3 );
+    }
+
+    @Benchmark
+    public String utf8Slice() {
+        return Buffer.utf8Slice( this.buffer, 0, this.encodedLength );
+    }
+
+    @Benchmark
+    public long asciiWrite() {
+        return Buffer.asciiWrite( this.buffer, this.ascii, 0, this.size );
+    }
+
+    @Benchmark
+    public String asciiSlice() {
+        return Buffer.asciiSlice( this.buffer, 0, this.size );
+    }
+
+    @Benchmark
+    public long binaryWrite() {
+        return Buffer.binaryWrite( this.buffer, this.ascii, 0, this.size );
+    }
+
+    @Benchmark
+    public String binarySlice() {
+        return Buffer.binarySlice( this.buffer, 0, this.size );
+    }
+
+    @Benchmark
+    public long ucs2Write() {
+        return Buffer.ucs2Write( this.buffer, this.ascii, 0, this.size * 2 );
+    }
+
+    @Benchmark
+    public String ucs2Slice() {
+        return Buffer.ucs2Slice( this.buffer, 0, this.size * 2 );
+    }
+
+    @Benchmark
+    public long hexWrite() {
+        return Buffer.hexWrite( this.buffer, this.hex, 0, this.size );
+    }
+
+    @Benchmark
+    public String hexSlice() {
+        return Buffer.hexSlice( this.buffer, 0, this.size );
+    }
+
+    @Benchmark
+    public long base64Write() {
+        return Buffer.base64Write( this.buffer, this.base64, 0, this.size );
+    }
+
+    @Benchmark
+    public String base64Slice() {
+        return Buffer.base64Slice( this.buffer, 0, this.size );
+    }
+}
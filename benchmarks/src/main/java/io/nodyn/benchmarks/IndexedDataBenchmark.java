@@ -0,0 +1,84 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.benchmarks;
+
+import io.netty.buffer.ByteBuf;
+import io.nodyn.buffer.NettyExternalIndexedData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Indexed access to a Buffer, as <code>buf[i]</code> from script does it:
+ * through the boxed <code>get</code>/<code>put</code> of ExternalIndexedData.
+ *
+ * @author Bob McWhirter
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexedDataBenchmark {
+
+    @Param({"1024"})
+    public int size;
+
+    @Param({"heap", "direct"})
+    public String memory;
+
+    private NettyExternalIndexedData data;
+    private Object[] values;
+
+    @Setup
+    public void setup() {
+        ByteBuf buf = Buffers.allocate( this.memory, this.size );
+        this.data = new NettyExternalIndexedData( buf );
+        this.values = new Object[this.size];
+        for (int i = 0; i < this.size; ++i) {
+            this.values[i] = (long) (i * 31);
+        }
+    }
+
+    @Benchmark
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < this.size; ++i) {
+            sum += ((Number) this.data.get( i )).longValue();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public NettyExternalIndexedData fill() {
+        for (int i = 0; i < this.size; ++i) {
+            this.data.put( i, this.values[i] );
+        }
+        return this.data;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.benchmarks;
+
+import io.nodyn.buffer.BufferViews;
+import io.nodyn.smalloc.AllocatorType;
+import io.nodyn.smalloc.BufferAllocator;
+import io.nodyn.smalloc.Smalloc;
+import org.dynjs.runtime.JSObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffer allocation and slicing with each allocator.
+ *
+ * <p>Allocated buffers are dropped immediately, so with a pooled allocator
+ * these also measure returning memory to the pool once the owners have
+ * been collected.</p>
+ *
+ * @author Bob McWhirter
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SmallocBenchmark {
+
+    @Param({"64", "8192", "65536"})
+    public int size;
+
+    @Param({"unpooled", "pooled-heap", "pooled-direct"})
+    public String allocator;
+
+    private BufferAllocator bufferAllocator;
+    private Smalloc smalloc;
+    private BufferViews views;
+    private JSObject pool;
+
+    @Setup
+    public void setup() throws Exception {
+        this.bufferAllocator = new BufferAllocator( AllocatorType.forName( this.allocator ) );
+        this.smalloc = new Smalloc( this.bufferAllocator );
+        this.views = new BufferViews( this.bufferAllocator );
+        this.pool = Buffers.create( this.size );
+        this.smalloc.alloc( this.pool, this.size );
+    }
+
+    @Benchmark
+    public Object alloc() throws Exception {
+        return this.smalloc.alloc( Buffers.create( this.size ), this.size );
+    }
+
+    @Benchmark
+    public Object sliceOnto() {
+        JSObject dest = Buffers.create( this.size / 2 );
+        this.views.sliceOnto( this.pool, dest, this.size / 4, this.size / 4 + this.size / 2 );
+        return dest;
+    }
+}
@@ -16,11 +16,16 @@
 
 package io.nodyn;
 
+import io.nodyn.async.DispatchQueue;
+import io.nodyn.buffer.BufferViews;
+import io.nodyn.buffer.DecodeCache;
 import io.nodyn.extension.ExtensionLoader;
 import io.nodyn.fs.UnsafeFs;
 import io.nodyn.loop.EventLoop;
 import io.nodyn.loop.ImmediateCheckHandle;
 import io.nodyn.posix.NodePosixHandler;
+import io.nodyn.smalloc.BufferAllocator;
+import io.nodyn.timer.TimerWheel;
 import jnr.posix.POSIX;
 import jnr.posix.POSIXFactory;
 import org.vertx.java.core.Vertx;
@@ -40,6 +45,11 @@ public class NodeProcess extends EventSource {
     private final String osName;
     private final String osArch;
     private final POSIX posix;
+    private final BufferAllocator bufferAllocator;
+    private final BufferViews bufferViews;
+    private final DecodeCache decodeCache;
+    private final DispatchQueue dispatchQueue;
+    private final TimerWheel timerWheel;
 
     private ImmediateCheckHandle immediateCheckHandle;
     private boolean needImmediateCallback;
@@ -66,6 +76,12 @@ public class NodeProcess extends EventSource {
         });
 
         this.posix = POSIXFactory.getPOSIX(new NodePosixHandler(), true);
+        this.bufferAllocator = new BufferAllocator(nodyn.getConfiguration().getBufferAllocator(), nodyn.getConfiguration().getMaxExternalMemory());
+        this.bufferViews = new BufferViews(this.bufferAllocator);
+        int decodeCacheSize = nodyn.getConfiguration().getDecodeCacheSize();
+        this.decodeCache = decodeCacheSize > 0 ? new DecodeCache(decodeCacheSize) : null;
+        this.dispatchQueue = new DispatchQueue(this);
+        this.timerWheel = new TimerWheel(nodyn.getEventLoop());
 
         // TODO remove this DynJS-specific code.
         this.extensionLoader = new ExtensionLoader( nodyn.getConfiguration().getClassLoader() );
@@ -120,6 +136,13 @@ public class NodeProcess extends EventSource {
         }
     }
 
+    /**
+     * @return this process's index within its isolate group, or -1 if it runs alone.
+     */
+    public int getIsolateId() {
+        return this.nodyn.getIsolateId();
+    }
+
     public Nodyn getNodyn() {
         return this.nodyn;
     }
@@ -132,6 +155,29 @@ public class NodeProcess extends EventSource {
         return this.nodyn.getVertx();
     }
 
+    public BufferAllocator getBufferAllocator() {
+        return this.bufferAllocator;
+    }
+
+    public BufferViews getBufferViews() {
+        return this.bufferViews;
+    }
+
+    /**
+     * @return the decode cache, or null if it is disabled.
+     */
+    public DecodeCache getDecodeCache() {
+        return this.decodeCache;
+    }
+
+    public DispatchQueue getDispatchQueue() {
+        return this.dispatchQueue;
+    }
+
+    public TimerWheel getTimerWheel() {
+        return this.timerWheel;
+    }
+
     public Object binding(String name) {
         Object binding = this.bindings.get(name);
         if (binding == null) {
@@ -21,6 +21,7 @@ import io.nodyn.crypto.CryptoInitializer;
 import io.nodyn.loop.EventLoop;
 import io.nodyn.runtime.NodynConfig;
 import io.nodyn.runtime.Program;
+import io.nodyn.tcp.SharedServers;
 import org.vertx.java.core.Vertx;
 import org.vertx.java.core.impl.VertxInternal;
 
@@ -91,7 +92,7 @@ public abstract class Nodyn {
 
     protected Nodyn(NodynConfig config, Vertx vertx, boolean controlLifeCycle) {
         EventLoopGroup elg = ((VertxInternal) vertx).getEventLoopGroup();
-        this.eventLoop = new EventLoop(elg, controlLifeCycle);
+        this.eventLoop = new EventLoop(elg, controlLifeCycle, config.getLoopMode(), config.newBlockingPool());
         this.vertx = vertx;
         this.config = config;
         this.completionHandler = new CompletionHandler();
@@ -123,11 +124,36 @@ public abstract class Nodyn {
         return this.vertx;
     }
 
+    /**
+     * @return the listening sockets shared with the other isolates of an
+     *         {@link io.nodyn.runtime.IsolateGroup}, or null if this runtime
+     *         runs alone.
+     */
+    public SharedServers getSharedServers() {
+        return this.sharedServers;
+    }
+
+    public void setSharedServers(SharedServers sharedServers) {
+        this.sharedServers = sharedServers;
+    }
+
+    /**
+     * @return this runtime's index within its isolate group, or -1 if it runs alone.
+     */
+    public int getIsolateId() {
+        return this.isolateId;
+    }
+
+    public void setIsolateId(int isolateId) {
+        this.isolateId = isolateId;
+    }
+
     public void setExitHandler(ExitHandler handle) {
         this.exitHandler = handle;
     }
 
     public void reallyExit(int exitCode) {
+        leaveSharedServers();
         this.eventLoop.shutdown();
         if (this.exitHandler != null) {
             this.exitHandler.reallyExit(exitCode);
@@ -137,7 +163,11 @@ public abstract class Nodyn {
     }
 
     private int await() throws Throwable {
-        this.eventLoop.await();
+        try {
+            this.eventLoop.await();
+        } finally {
+            leaveSharedServers();
+        }
 
         if (this.completionHandler.error != null) {
             throw completionHandler.error;
@@ -150,6 +180,13 @@ public abstract class Nodyn {
         return this.completionHandler.process.getExitCode();
     }
 
+    private void leaveSharedServers() {
+        // other isolates take this one's connections from now on
+        if (this.sharedServers != null) {
+            this.sharedServers.leave(this);
+        }
+    }
+
     private void start(final Callback callback) {
         this.eventLoop.submitUserTask(new Runnable() {
             @Override
@@ -174,6 +211,8 @@ public abstract class Nodyn {
     private final Vertx vertx;
     private final NodynConfig config;
     private ExitHandler exitHandler;
+    private SharedServers sharedServers;
+    private int isolateId = -1;
 
 
     private static class CompletionHandler {
@@ -19,6 +19,7 @@ package io.nodyn.async;
 import io.nodyn.CallbackResult;
 import io.nodyn.EventSource;
 import io.nodyn.NodeProcess;
+import io.nodyn.loop.LoopPhase;
 
 /**
  * @author Bob McWhirter
@@ -35,27 +36,26 @@ public class AsyncWrap extends EventSource {
         return this.process;
     }
 
-    public void makeCallback(final int index) {
-        this.process.getEventLoop().submitUserTask( new Runnable() {
-            @Override
-            public void run() {
-                emit("makeCallbackByIndex", CallbackResult.createSuccess( index ) );
-            }
-        }, "make-callback-for-" + getClass().getSimpleName() );
+    public void makeCallback(int index) {
+        this.process.getDispatchQueue().dispatch( this, "makeCallbackByIndex", CallbackResult.createSuccess( index ) );
+    }
 
+    /**
+     * Make callback <code>index</code> in <code>phase</code> rather than the poll phase.
+     */
+    public void makeCallback(int index, LoopPhase phase) {
+        this.process.getDispatchQueue().dispatch( this, "makeCallbackByIndex", CallbackResult.createSuccess( index ), phase );
     }
 
-    public Object emit(final String event, final CallbackResult result) {
-        this.process.getEventLoop().submitUserTask( new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    AsyncWrap.super.emit(event, result);
-                } catch (Throwable t) {
-                    AsyncWrap.this.getProcess().getNodyn().handleThrowable(t);
-                }
-            }
-        }, "emit-for-" + getClass().getSimpleName() );
+    public Object emit(String event, CallbackResult result) {
+        this.process.getDispatchQueue().dispatch( this, event, result );
         return null;
     }
+
+    /**
+     * Invoke the callback for <code>event</code> directly, on the event loop.
+     */
+    void deliver(String event, CallbackResult result) {
+        super.emit( event, result );
+    }
 }
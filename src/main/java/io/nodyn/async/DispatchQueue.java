@@ -0,0 +1,152 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.async;
+
+import io.nodyn.CallbackResult;
+import io.nodyn.NodeProcess;
+import io.nodyn.loop.LoopPhase;
+import io.nodyn.loop.LoopStats;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers events from any thread to their AsyncWraps on the event loop.
+ *
+ * <p>Rather than submitting a user task per event, events are queued and
+ * a single task drains everything pending, so the ref handle, task and
+ * nextTick processing are paid for once per batch rather than per event.
+ * Events are delivered in the order they were queued, and the run time
+ * of each is recorded in {@link LoopStats} by wrap class and event name.</p>
+ *
+ * <p>Events raised by expired timers are batched apart from the rest and
+ * delivered in the timers phase, so timer callbacks see
+ * {@link LoopPhase#TIMERS} as they would in node.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class DispatchQueue {
+
+    // bound a batch so other user tasks are not starved by a busy producer
+    public static final int MAX_BATCH = 1024;
+
+    private final NodeProcess process;
+    private final Batch poll = new Batch("dispatch", LoopPhase.POLL);
+    private final Batch timers = new Batch("dispatch-timers", LoopPhase.TIMERS);
+
+    // only touched while draining, on the loop thread
+    private final Map<Class<?>, Map<String, String>> statsNames = new HashMap<>();
+
+    public DispatchQueue(NodeProcess process) {
+        this.process = process;
+    }
+
+    public void dispatch(AsyncWrap target, String event, CallbackResult result) {
+        dispatch(target, event, result, LoopPhase.POLL);
+    }
+
+    /**
+     * @param phase the phase the event originated in, and so is delivered in.
+     */
+    public void dispatch(AsyncWrap target, String event, CallbackResult result, LoopPhase phase) {
+        Batch batch = (phase == LoopPhase.TIMERS ? this.timers : this.poll);
+        batch.queue.add(new Event(target, event, result));
+        batch.schedule();
+    }
+
+    private class Batch implements Runnable {
+
+        private final String name;
+        private final LoopPhase phase;
+        private final ConcurrentLinkedQueue<Event> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Batch(String name, LoopPhase phase) {
+            this.name = name;
+            this.phase = phase;
+        }
+
+        void schedule() {
+            if (this.scheduled.compareAndSet(false, true)) {
+                DispatchQueue.this.process.getEventLoop().submitUserTask(this, this.name, this.phase);
+            }
+        }
+
+        @Override
+        public void run() {
+            LoopStats stats = DispatchQueue.this.process.getEventLoop().getStats();
+            try {
+                Event event;
+                int count = 0;
+                // one callback ends as the next starts, so one clock read each
+                long startedAt = System.nanoTime();
+                while (count < MAX_BATCH && (event = this.queue.poll()) != null) {
+                    ++count;
+                    try {
+                        event.target.deliver(event.name, event.result);
+                    } catch (Throwable t) {
+                        DispatchQueue.this.process.getNodyn().handleThrowable(t);
+                    } finally {
+                        long endedAt = System.nanoTime();
+                        stats.recordCallback(statsName(event), startedAt, endedAt);
+                        startedAt = endedAt;
+                    }
+                }
+            } finally {
+                this.scheduled.set(false);
+                // anything queued while the flag was still set is our responsibility
+                if (!this.queue.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return what a callback's run time is recorded under, such as
+     *         "TCPWrap#connection", built once per wrap class and event.
+     */
+    private String statsName(Event event) {
+        Class<?> type = event.target.getClass();
+        Map<String, String> names = this.statsNames.get(type);
+        if (names == null) {
+            names = new HashMap<>();
+            this.statsNames.put(type, names);
+        }
+        String name = names.get(event.name);
+        if (name == null) {
+            name = type.getSimpleName() + "#" + event.name;
+            names.put(event.name, name);
+        }
+        return name;
+    }
+
+    private static class Event {
+
+        final AsyncWrap target;
+        final String name;
+        final CallbackResult result;
+
+        Event(AsyncWrap target, String name, CallbackResult result) {
+            this.target = target;
+            this.name = name;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.buffer;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Little-endian and variable-width integer accessors for ByteBufs, which
+ * only provide big-endian access for the standard widths.
+ *
+ * @author Bob McWhirter
+ */
+public class Accessors {
+
+    // ----------------------------------------
+    // little-endian
+    // ----------------------------------------
+
+    public static short getShortLE(ByteBuf buf, int index) {
+        return Short.reverseBytes(buf.getShort(index));
+    }
+
+    public static int getUnsignedShortLE(ByteBuf buf, int index) {
+        return getShortLE(buf, index) & 0xFFFF;
+    }
+
+    public static int getIntLE(ByteBuf buf, int index) {
+        return Integer.reverseBytes(buf.getInt(index));
+    }
+
+    public static long getUnsignedIntLE(ByteBuf buf, int index) {
+        return getIntLE(buf, index) & 0xFFFFFFFFL;
+    }
+
+    public static long getLongLE(ByteBuf buf, int index) {
+        return Long.reverseBytes(buf.getLong(index));
+    }
+
+    public static void setShortLE(ByteBuf buf, int index, int value) {
+        buf.setShort(index, Short.reverseBytes((short) value));
+    }
+
+    public static void setIntLE(ByteBuf buf, int index, int value) {
+        buf.setInt(index, Integer.reverseBytes(value));
+    }
+
+    public static void setLongLE(ByteBuf buf, int index, long value) {
+        buf.setLong(index, Long.reverseBytes(value));
+    }
+
+    // ----------------------------------------
+    // variable width, 1 to 6 bytes
+    // ----------------------------------------
+
+    public static long getUnsignedBE(ByteBuf buf, int index, int byteLength) {
+        switch (byteLength) {
+            case 1:
+                return buf.getUnsignedByte(index);
+            case 2:
+                return buf.getUnsignedShort(index);
+            case 3:
+                return buf.getUnsignedMedium(index);
+            case 4:
+                return buf.getUnsignedInt(index);
+            case 5:
+                return ((long) buf.getUnsignedByte(index) << 32) | buf.getUnsignedInt(index + 1);
+            case 6:
+                return ((long) buf.getUnsignedShort(index) << 32) | buf.getUnsignedInt(index + 2);
+        }
+        throw new IllegalArgumentException("byteLength must be between 1 and 6: " + byteLength);
+    }
+
+    public static long getUnsignedLE(ByteBuf buf, int index, int byteLength) {
+        switch (byteLength) {
+            case 1:
+                return buf.getUnsignedByte(index);
+            case 2:
+                return getUnsignedShortLE(buf, index);
+            case 3:
+                return buf.getUnsignedByte(index) | (getUnsignedShortLE(buf, index + 1) << 8);
+            case 4:
+                return getUnsignedIntLE(buf, index);
+            case 5:
+                return getUnsignedIntLE(buf, index) | ((long) buf.getUnsignedByte(index + 4) << 32);
+            case 6:
+                return getUnsignedIntLE(buf, index) | ((long) getUnsignedShortLE(buf, index + 4) << 32);
+        }
+        throw new IllegalArgumentException("byteLength must be between 1 and 6: " + byteLength);
+    }
+
+    public static long getSignedBE(ByteBuf buf, int index, int byteLength) {
+        return signExtend(getUnsignedBE(buf, index, byteLength), byteLength);
+    }
+
+    public static long getSignedLE(ByteBuf buf, int index, int byteLength) {
+        return signExtend(getUnsignedLE(buf, index, byteLength), byteLength);
+    }
+
+    private static long signExtend(long value, int byteLength) {
+        int shift = 64 - (byteLength * 8);
+        return (value << shift) >> shift;
+    }
+
+    public static void setBE(ByteBuf buf, int index, int byteLength, long value) {
+        switch (byteLength) {
+            case 1:
+                buf.setByte(index, (int) value);
+                return;
+            case 2:
+                buf.setShort(index, (int) value);
+                return;
+            case 3:
+                buf.setMedium(index, (int) value);
+                return;
+            case 4:
+                buf.setInt(index, (int) value);
+                return;
+            case 5:
+                buf.setByte(index, (int) (value >> 32));
+                buf.setInt(index + 1, (int) value);
+                return;
+            case 6:
+                buf.setShort(index, (int) (value >> 32));
+                buf.setInt(index + 2, (int) value);
+                return;
+        }
+        throw new IllegalArgumentException("byteLength must be between 1 and 6: " + byteLength);
+    }
+
+    public static void setLE(ByteBuf buf, int index, int byteLength, long value) {
+        switch (byteLength) {
+            case 1:
+                buf.setByte(index, (int) value);
+                return;
+            case 2:
+                setShortLE(buf, index, (int) value);
+                return;
+            case 3:
+                buf.setByte(index, (int) value);
+                setShortLE(buf, index + 1, (int) (value >> 8));
+                return;
+            case 4:
+                setIntLE(buf, index, (int) value);
+                return;
+            case 5:
+                setIntLE(buf, index, (int) value);
+                buf.setByte(index + 4, (int) (value >> 32));
+                return;
+            case 6:
+                setIntLE(buf, index, (int) value);
+                setShortLE(buf, index + 4, (int) (value >> 32));
+                return;
+        }
+        throw new IllegalArgumentException("byteLength must be between 1 and 6: " + byteLength);
+    }
+}
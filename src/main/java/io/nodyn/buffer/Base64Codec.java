@@ -0,0 +1,170 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.buffer;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Table-driven base64 conversion between ByteBufs and strings.
+ *
+ * <p>Decoding accepts both the standard and the URL-safe alphabets, skips
+ * whitespace and any other characters outside of them, and stops at the
+ * first '=' just like node.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class Base64Codec {
+
+    private static final char[] STANDARD = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+    private static final char[] URL_SAFE = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+
+    private static final byte[] VALUES = new byte[128];
+
+    // keep chunks of direct buffers on 3-byte group boundaries
+    private static final int CHUNK = (Scratch.SIZE / 3) * 3;
+
+    static {
+        for (int i = 0; i < VALUES.length; ++i) {
+            VALUES[i] = -1;
+        }
+        for (int i = 0; i < STANDARD.length; ++i) {
+            VALUES[STANDARD[i]] = (byte) i;
+            VALUES[URL_SAFE[i]] = (byte) i;
+        }
+    }
+
+    public static String encode(ByteBuf buf, int start, int end) {
+        return encode(buf, start, end, false);
+    }
+
+    /**
+     * @param urlSafe if true, use the URL-safe alphabet and omit padding.
+     */
+    public static String encode(ByteBuf buf, int start, int end, boolean urlSafe) {
+        int len = end - start;
+        char[] alphabet = urlSafe ? URL_SAFE : STANDARD;
+        boolean pad = !urlSafe;
+        char[] out = new char[encodedLength(len, pad)];
+
+        if (buf.hasArray()) {
+            encode(buf.array(), buf.arrayOffset() + start, len, alphabet, pad, out, 0);
+        } else {
+            byte[] scratch = Scratch.get();
+            int done = 0;
+            int outPos = 0;
+            while (done < len) {
+                int chunk = Math.min(CHUNK, len - done);
+                buf.getBytes(start + done, scratch, 0, chunk);
+                outPos = encode(scratch, 0, chunk, alphabet, pad, out, outPos);
+                done += chunk;
+            }
+        }
+
+        return new String(out);
+    }
+
+    public static int encodedLength(int len, boolean pad) {
+        if (pad) {
+            return ((len + 2) / 3) * 4;
+        }
+        return (len * 4 + 2) / 3;
+    }
+
+    private static int encode(byte[] in, int pos, int len, char[] alphabet, boolean pad, char[] out, int outPos) {
+        int fullEnd = pos + (len / 3) * 3;
+
+        while (pos < fullEnd) {
+            int n = (in[pos] & 0xFF) << 16 | (in[pos + 1] & 0xFF) << 8 | (in[pos + 2] & 0xFF);
+            pos += 3;
+            out[outPos++] = alphabet[n >>> 18];
+            out[outPos++] = alphabet[(n >>> 12) & 0x3F];
+            out[outPos++] = alphabet[(n >>> 6) & 0x3F];
+            out[outPos++] = alphabet[n & 0x3F];
+        }
+
+        switch (len % 3) {
+            case 1: {
+                int n = (in[pos] & 0xFF) << 16;
+                out[outPos++] = alphabet[n >>> 18];
+                out[outPos++] = alphabet[(n >>> 12) & 0x3F];
+                if (pad) {
+                    out[outPos++] = '=';
+                    out[outPos++] = '=';
+                }
+                break;
+            }
+            case 2: {
+                int n = (in[pos] & 0xFF) << 16 | (in[pos + 1] & 0xFF) << 8;
+                out[outPos++] = alphabet[n >>> 18];
+                out[outPos++] = alphabet[(n >>> 12) & 0x3F];
+                out[outPos++] = alphabet[(n >>> 6) & 0x3F];
+                if (pad) {
+                    out[outPos++] = '=';
+                }
+                break;
+            }
+        }
+
+        return outPos;
+    }
+
+    /**
+     * Decode <code>str</code> into <code>buf</code> at <code>offset</code>,
+     * writing no more than <code>max</code> bytes.
+     *
+     * @return the number of bytes written.
+     */
+    public static int decode(String str, ByteBuf buf, int offset, int max) {
+        byte[] array = null;
+        int pos = offset;
+        if (buf.hasArray()) {
+            array = buf.array();
+            pos += buf.arrayOffset();
+        }
+
+        final int strLen = str.length();
+        int written = 0;
+        int bits = 0;
+        int acc = 0;
+
+        for (int i = 0; i < strLen && written < max; ++i) {
+            char c = str.charAt(i);
+            if (c == '=') {
+                break;
+            }
+            int v = c < 128 ? VALUES[c] : -1;
+            if (v < 0) {
+                continue;
+            }
+            acc = (acc << 6) | v;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                int b = (acc >>> bits) & 0xFF;
+                acc &= (1 << bits) - 1;
+                if (array != null) {
+                    array[pos + written] = (byte) b;
+                } else {
+                    buf.setByte(pos + written, b);
+                }
+                ++written;
+            }
+        }
+
+        return written;
+    }
+}
@@ -17,8 +17,7 @@
 package io.nodyn.buffer;
 
 import io.netty.buffer.ByteBuf;
-import org.bouncycastle.util.encoders.Base64;
-import org.bouncycastle.util.encoders.Hex;
+import io.netty.buffer.Unpooled;
 import org.dynjs.runtime.JSObject;
 
 import java.nio.charset.Charset;
@@ -53,21 +52,35 @@ public class Buffer {
         return ((Number) obj.get( null, "length" )).intValue();
     }
 
+    private static int writableLength(JSObject obj, ByteBuf b, int offset, int len) {
+        int available = Math.min( bufLen( obj ), b.capacity() ) - offset;
+        return Math.max( 0, Math.min( len, available ) );
+    }
+
+    private static void wrote(ByteBuf b, int offset, int len) {
+        b.writerIndex( Math.max( b.writerIndex(), offset + len ) );
+    }
+
     // ----------------------------------------
     // ----------------------------------------
 
     public static Object fill(JSObject obj, Object val, int offset, int end) {
-        int byteVal = 0;
-        if ( val instanceof Number ) {
-            byteVal = ((Number) val).intValue() & 0xFF;
-        } else if ( val instanceof String && ! ((String) val).isEmpty() ) {
-            byteVal = ((String) val).charAt(0);
-        }
         ByteBuf b = extract(obj);
-        for ( int i = offset; i < end; ++i ) {
-            b.setByte( i, byteVal );
+        end = Math.min( end, b.capacity() );
+        if ( val instanceof String && ( ((String) val).length() > 1 || ( ((String) val).length() == 1 && ((String) val).charAt(0) > 0xFF ) ) ) {
+            Bytes.fill( b, offset, end, ((String) val).getBytes( UTF8 ) );
+        } else {
+            int byteVal = 0;
+            if ( val instanceof Number ) {
+                byteVal = ((Number) val).intValue();
+            } else if ( val instanceof String && ! ((String) val).isEmpty() ) {
+                byteVal = ((String) val).charAt(0);
+            }
+            Bytes.fill( b, offset, end, byteVal );
+        }
+        if ( end > offset ) {
+            wrote( b, offset, end - offset );
         }
-        b.writerIndex( Math.max( b.writerIndex(), offset + end ) );
         return obj;
     }
 
@@ -76,20 +89,64 @@ public class Buffer {
         ByteBuf srcBuf = extract(src);
         ByteBuf targetBuf = extract(target);
 
-        int origWriter = targetBuf.writerIndex();
-
-        targetBuf.writerIndex( targetStart );
-
-        int len = sourceEnd - sourceStart;
+        int len = Math.min( sourceEnd, bufLen( src ) ) - sourceStart;
 
         len = Math.min( len, bufLen( target ) - targetStart );
 
-        targetBuf.writeBytes(srcBuf, sourceStart, len);
-        targetBuf.writerIndex(Math.max(targetBuf.writerIndex(), origWriter));
+        if ( len <= 0 ) {
+            return 0;
+        }
+
+        Bytes.move( srcBuf, sourceStart, targetBuf, targetStart, len );
+        wrote( targetBuf, targetStart, len );
 
         return len;
     }
 
+    // ----------------------------------------
+    // compare & search
+    // ----------------------------------------
+
+    public static int compare(JSObject a, JSObject b) {
+        return Bytes.compare( extract( a ), 0, bufLen( a ), extract( b ), 0, bufLen( b ) );
+    }
+
+    public static boolean equals(JSObject a, JSObject b) {
+        int len = bufLen( a );
+        if ( len != bufLen( b ) ) {
+            return false;
+        }
+        return Bytes.equals( extract( a ), 0, extract( b ), 0, len );
+    }
+
+    public static int indexOf(JSObject obj, Object val, int byteOffset) {
+        ByteBuf b = extract( obj );
+        int len = bufLen( obj );
+
+        if ( byteOffset < 0 ) {
+            byteOffset = Math.max( 0, len + byteOffset );
+        }
+        if ( byteOffset >= len ) {
+            return -1;
+        }
+
+        if ( val instanceof Number ) {
+            return Bytes.indexOf( b, byteOffset, len, ((Number) val).intValue() );
+        }
+
+        ByteBuf needle;
+        int needleLen;
+        if ( val instanceof JSObject ) {
+            needle = extract( (JSObject) val );
+            needleLen = bufLen( (JSObject) val );
+        } else {
+            byte[] bytes = val.toString().getBytes( UTF8 );
+            needle = Unpooled.wrappedBuffer( bytes );
+            needleLen = bytes.length;
+        }
+
+        return Bytes.indexOf( b, byteOffset, len, needle, 0, needleLen );
+    }
 
     // ----------------------------------------
     // utf8
@@ -97,13 +154,11 @@ public class Buffer {
 
     public static long[] utf8Write(JSObject object, String str, int offset, int len) {
         ByteBuf b = extract( object );
-        int origWriter = b.writerIndex();
-        byte[] bytes = str.getBytes( UTF8 );
-        b.writerIndex( offset );
-        len = Math.min( bytes.length, Math.min( len, bufLen(object) - offset  ) );
-        b.writeBytes( bytes, 0, len );
-        b.writerIndex( Math.max( b.writerIndex(), origWriter ) );
-        return new long[] { str.length(), len };
+        len = writableLength( object, b, offset, len );
+        long result = StringEncoder.utf8Write( b, str, offset, len );
+        int written = StringEncoder.bytes( result );
+        wrote( b, offset, written );
+        return new long[] { StringEncoder.chars( result ), written };
     }
 
     public static String utf8Slice(JSObject object, int start, int end) {
@@ -116,13 +171,7 @@ public class Buffer {
     // ----------------------------------------
 
     public static long asciiWrite(JSObject object, String str, int offset, int len) {
-        ByteBuf b = extract( object );
-        int origWriter = b.writerIndex();
-        byte[] bytes = str.getBytes( ASCII );
-        len = Math.min( bytes.length, Math.min( len, b.writableBytes() ) );
-        b.writeBytes( bytes, 0, len );
-        b.writerIndex( Math.max( b.writerIndex(), origWriter ) );
-        return len;
+        return binaryWrite( object, str, offset, len );
     }
 
     public static String asciiSlice(JSObject object, int start, int end) {
@@ -136,12 +185,10 @@ public class Buffer {
 
     public static long ucs2Write(JSObject object, String str, int offset, int len) {
         ByteBuf b = extract( object );
-        int origWriter = b.writerIndex();
-        byte[] bytes = str.getBytes( UCS2 );
-        len = Math.min( bytes.length, Math.min( len, b.writableBytes() ) );
-        b.writeBytes( bytes, 0, len );
-        b.writerIndex( Math.max( b.writerIndex(), origWriter ) );
-        return len;
+        len = writableLength( object, b, offset, len );
+        int written = StringEncoder.bytes( StringEncoder.ucs2Write( b, str, offset, len ) );
+        wrote( b, offset, written );
+        return written;
     }
 
     public static String ucs2Slice(JSObject object, int start, int end) {
@@ -155,20 +202,14 @@ public class Buffer {
 
     public static long hexWrite(JSObject object, String str, int offset, int len) {
         ByteBuf b = extract( object );
-        int origWriter = b.writerIndex();
-        byte[] bytes = Hex.decode(str);
-        b.writerIndex( offset );
-        len = Math.min( bytes.length, Math.min( len, b.writableBytes() ) );
-        b.writeBytes( bytes, 0, len );
-        b.writerIndex( Math.max( b.writerIndex(), origWriter ) );
-        return len;
+        len = writableLength( object, b, offset, len );
+        int written = HexCodec.decode( str, b, offset, len );
+        wrote( b, offset, written );
+        return written;
     }
 
     public static String hexSlice(JSObject object, int start, int end) {
-        ByteBuf b = extract( object );
-        byte[] bytes = new byte[ end-start ];
-        b.getBytes( start, bytes );
-        return Hex.toHexString( bytes );
+        return HexCodec.encode( extract( object ), start, end );
     }
 
     // ----------------------------------------
@@ -177,21 +218,14 @@ public class Buffer {
 
     public static long base64Write(JSObject object, String str, int offset, int len) {
         ByteBuf b = extract( object );
-        int origWriter = b.writerIndex();
-        byte[] bytes = Base64.decode(str);
-        b.writerIndex( offset );
-        len = Math.min( bytes.length, Math.min( len, b.writableBytes() ) );
-        b.writeBytes(bytes, 0, len);
-        b.writerIndex(Math.max(b.writerIndex(), origWriter));
-        return len;
+        len = writableLength( object, b, offset, len );
+        int written = Base64Codec.decode( str, b, offset, len );
+        wrote( b, offset, written );
+        return written;
     }
 
     public static String base64Slice(JSObject object, int start, int end) {
-        ByteBuf b = extract( object );
-        byte[] bytes = new byte[ end-start ];
-        b.getBytes( start, bytes );
-
-        return Base64.toBase64String(bytes);
+        return Base64Codec.encode( extract( object ), start, end );
     }
 
     // ----------------------------------------
@@ -200,12 +234,10 @@ public class Buffer {
 
     public static long binaryWrite(JSObject object, String str, int offset, int len) {
         ByteBuf b = extract( object );
-        int origWriter = b.writerIndex();
-        byte[] bytes = str.getBytes( BINARY );
-        len = Math.min( bytes.length, Math.min( len, b.writableBytes() ) );
-        b.writeBytes( bytes, 0, len );
-        b.writerIndex( Math.max( b.writerIndex(), origWriter ) );
-        return len;
+        len = writableLength( object, b, offset, len );
+        int written = StringEncoder.bytes( StringEncoder.oneByteWrite( b, str, offset, len ) );
+        wrote( b, offset, written );
+        return written;
     }
 
     public static String binarySlice(JSObject object, int start, int end) {
@@ -214,44 +246,164 @@ public class Buffer {
     }
 
     // ----------------------------------------
-    // read/write
+    // integers
+    // ----------------------------------------
+
+    // Writes take the value as a double, which is how it arrives from
+    // JavaScript, and store its low bytes; signed and unsigned values of
+    // the same width share a writer. Each returns the offset just past
+    // the value written, as node does.
+
+    public static int readUInt8(JSObject obj, int offset) {
+        return extract( obj ).getUnsignedByte( offset );
+    }
+
+    public static int readInt8(JSObject obj, int offset) {
+        return extract( obj ).getByte( offset );
+    }
+
+    public static int readUInt16BE(JSObject obj, int offset) {
+        return extract( obj ).getUnsignedShort( offset );
+    }
+
+    public static int readUInt16LE(JSObject obj, int offset) {
+        return Accessors.getUnsignedShortLE( extract( obj ), offset );
+    }
+
+    public static int readInt16BE(JSObject obj, int offset) {
+        return extract( obj ).getShort( offset );
+    }
+
+    public static int readInt16LE(JSObject obj, int offset) {
+        return Accessors.getShortLE( extract( obj ), offset );
+    }
+
+    public static long readUInt32BE(JSObject obj, int offset) {
+        return extract( obj ).getUnsignedInt( offset );
+    }
+
+    public static long readUInt32LE(JSObject obj, int offset) {
+        return Accessors.getUnsignedIntLE( extract( obj ), offset );
+    }
+
+    public static int readInt32BE(JSObject obj, int offset) {
+        return extract( obj ).getInt( offset );
+    }
+
+    public static int readInt32LE(JSObject obj, int offset) {
+        return Accessors.getIntLE( extract( obj ), offset );
+    }
+
+    public static long readUIntBE(JSObject obj, int offset, int byteLength) {
+        return Accessors.getUnsignedBE( extract( obj ), offset, byteLength );
+    }
+
+    public static long readUIntLE(JSObject obj, int offset, int byteLength) {
+        return Accessors.getUnsignedLE( extract( obj ), offset, byteLength );
+    }
+
+    public static long readIntBE(JSObject obj, int offset, int byteLength) {
+        return Accessors.getSignedBE( extract( obj ), offset, byteLength );
+    }
+
+    public static long readIntLE(JSObject obj, int offset, int byteLength) {
+        return Accessors.getSignedLE( extract( obj ), offset, byteLength );
+    }
+
+    public static int writeInt8(JSObject obj, double value, int offset) {
+        ByteBuf b = extract( obj );
+        b.setByte( offset, (int) (long) value );
+        wrote( b, offset, 1 );
+        return offset + 1;
+    }
+
+    public static int writeInt16BE(JSObject obj, double value, int offset) {
+        ByteBuf b = extract( obj );
+        b.setShort( offset, (int) (long) value );
+        wrote( b, offset, 2 );
+        return offset + 2;
+    }
+
+    public static int writeInt16LE(JSObject obj, double value, int offset) {
+        ByteBuf b = extract( obj );
+        Accessors.setShortLE( b, offset, (int) (long) value );
+        wrote( b, offset, 2 );
+        return offset + 2;
+    }
+
+    public static int writeInt32BE(JSObject obj, double value, int offset) {
+        ByteBuf b = extract( obj );
+        b.setInt( offset, (int) (long) value );
+        wrote( b, offset, 4 );
+        return offset + 4;
+    }
+
+    public static int writeInt32LE(JSObject obj, double value, int offset) {
+        ByteBuf b = extract( obj );
+        Accessors.setIntLE( b, offset, (int) (long) value );
+        wrote( b, offset, 4 );
+        return offset + 4;
+    }
+
+    public static int writeIntBE(JSObject obj, double value, int offset, int byteLength) {
+        ByteBuf b = extract( obj );
+        Accessors.setBE( b, offset, byteLength, (long) value );
+        wrote( b, offset, byteLength );
+        return offset + byteLength;
+    }
+
+    public static int writeIntLE(JSObject obj, double value, int offset, int byteLength) {
+        ByteBuf b = extract( obj );
+        Accessors.setLE( b, offset, byteLength, (long) value );
+        wrote( b, offset, byteLength );
+        return offset + byteLength;
+    }
+
+    // ----------------------------------------
+    // floating point
     // ----------------------------------------
 
-    public static void writeFloatBE(JSObject obj, float value, int offset) {
-        extract( obj ).setFloat( offset, value );
+    public static int writeFloatBE(JSObject obj, float value, int offset) {
+        ByteBuf b = extract( obj );
+        b.setFloat( offset, value );
+        wrote( b, offset, 4 );
+        return offset + 4;
     }
 
     public static float readFloatBE(JSObject obj, int offset) {
         return extract( obj ).getFloat( offset );
     }
 
-    public static void writeFloatLE(JSObject obj, float value, int offset) {
-        int bits = Float.floatToIntBits((float) value);
-        extract(obj).setInt(offset, Integer.reverseBytes(bits));
+    public static int writeFloatLE(JSObject obj, float value, int offset) {
+        ByteBuf b = extract( obj );
+        Accessors.setIntLE( b, offset, Float.floatToRawIntBits( value ) );
+        wrote( b, offset, 4 );
+        return offset + 4;
     }
 
     public static float readFloatLE(JSObject obj, int offset) {
-        int bits = extract(obj).getInt(offset);
-        return Float.intBitsToFloat(Integer.reverseBytes(bits));
+        return Float.intBitsToFloat( Accessors.getIntLE( extract( obj ), offset ) );
     }
 
-    public static void writeDoubleBE(JSObject obj, double value, int offset) {
-        extract( obj ).setDouble( offset, value );
+    public static int writeDoubleBE(JSObject obj, double value, int offset) {
+        ByteBuf b = extract( obj );
+        b.setDouble( offset, value );
+        wrote( b, offset, 8 );
+        return offset + 8;
     }
 
     public static double readDoubleBE(JSObject obj, int offset) {
         return extract(obj).getDouble( offset );
     }
 
-    public static void writeDoubleLE(JSObject obj, double value, int offset) {
-        long bits = Double.doubleToLongBits(value);
-        extract(obj).setLong(offset, Long.reverse(bits));
+    public static int writeDoubleLE(JSObject obj, double value, int offset) {
+        ByteBuf b = extract( obj );
+        Accessors.setLongLE( b, offset, Double.doubleToRawLongBits( value ) );
+        wrote( b, offset, 8 );
+        return offset + 8;
     }
 
     public static double readDoubleLE(JSObject obj, int offset) {
-        long bits = extract(obj).getLong(offset);
-        return Double.longBitsToDouble(Long.reverseBytes(bits));
+        return Double.longBitsToDouble( Accessors.getLongLE( extract( obj ), offset ) );
     }
-
-
 }
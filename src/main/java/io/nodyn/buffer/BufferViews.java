@@ -0,0 +1,112 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.nodyn.smalloc.BufferAllocator;
+import org.dynjs.runtime.JSObject;
+
+/**
+ * Buffers which share the memory of other buffers rather than copying it.
+ *
+ * <p>A view holds a reference to the memory it shares, so with a pooled
+ * allocator that memory is not recycled until every view over it has
+ * been collected, as well as the buffer it was first allocated for.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class BufferViews {
+
+    private final BufferAllocator allocator;
+
+    public BufferViews(BufferAllocator allocator) {
+        this.allocator = allocator;
+    }
+
+    public BufferAllocator getAllocator() {
+        return this.allocator;
+    }
+
+    /**
+     * A view of <code>src</code> from <code>start</code> to <code>end</code>,
+     * readable up to however much of that range has been written.
+     */
+    public ByteBuf slice(ByteBuf src, int start, int end) {
+        int len = end - start;
+        ByteBuf slice = src.slice( start, len );
+        slice.writerIndex( Math.max( 0, Math.min( len, src.writerIndex() - start ) ) );
+        return slice;
+    }
+
+    public Object sliceOnto(JSObject src, JSObject dest, int start, int end) {
+        ByteBuf slice = slice( Buffer.extract( src ), start, end );
+        this.allocator.retain( dest, slice );
+        Buffer.inject( dest, slice );
+        return src;
+    }
+
+    /**
+     * Back <code>dest</code> with a composite of the buffers in the array
+     * <code>list</code>, truncated to <code>length</code> bytes unless it
+     * is negative.
+     *
+     * @return the length of <code>dest</code>, or -1 if the buffers could not
+     *         be composed and should be copied instead.
+     */
+    public int concatOnto(JSObject list, int length, JSObject dest) {
+        int count = ((Number) list.get( null, "length" )).intValue();
+        JSObject[] buffers = new JSObject[count];
+        int total = 0;
+        for (int i = 0; i < count; ++i) {
+            Object each = list.get( null, String.valueOf( i ) );
+            if (!(each instanceof JSObject) || !(((JSObject) each).getExternalIndexedData() instanceof NettyExternalIndexedData)) {
+                return -1;
+            }
+            buffers[i] = (JSObject) each;
+            total += Buffer.bufLen( buffers[i] );
+        }
+
+        if (length < 0) {
+            length = total;
+        } else if (length > total) {
+            // the remainder would have to be allocated anyhow
+            return -1;
+        }
+
+        CompositeByteBuf composite = this.allocator.compositeBuffer( count );
+        int remaining = length;
+        for (int i = 0; i < count && remaining > 0; ++i) {
+            int len = Math.min( remaining, Buffer.bufLen( buffers[i] ) );
+            if (len == 0) {
+                continue;
+            }
+            // a component contributes its readable bytes
+            ByteBuf part = Buffer.extract( buffers[i] ).slice( 0, len );
+            if (this.allocator.isPooled()) {
+                part.retain();
+            }
+            composite.addComponent( part );
+            remaining -= len;
+        }
+        composite.writerIndex( length );
+
+        this.allocator.releaseWith( dest, composite );
+        Buffer.inject( dest, composite );
+        return length;
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.buffer;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.Arrays;
+
+/**
+ * Bulk fill, move, compare and search over regions of ByteBufs.
+ *
+ * <p>Comparisons and searches work a long at a time, falling back to
+ * single bytes only for the unaligned tail.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class Bytes {
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGHS = 0x8080808080808080L;
+
+    // ----------------------------------------
+    // fill
+    // ----------------------------------------
+
+    public static void fill(ByteBuf buf, int offset, int end, int value) {
+        int len = end - offset;
+        if (len <= 0) {
+            return;
+        }
+        value &= 0xFF;
+        if (value == 0) {
+            buf.setZero(offset, len);
+        } else if (buf.hasArray()) {
+            int base = buf.arrayOffset();
+            Arrays.fill(buf.array(), base + offset, base + end, (byte) value);
+        } else {
+            buf.setByte(offset, value);
+            repeat(buf, offset, end, 1);
+        }
+    }
+
+    /**
+     * Fill the region with repeated copies of <code>pattern</code>; a
+     * trailing partial copy is written if the region is not a multiple of
+     * the pattern length.
+     */
+    public static void fill(ByteBuf buf, int offset, int end, byte[] pattern) {
+        int len = end - offset;
+        if (len <= 0 || pattern.length == 0) {
+            return;
+        }
+        if (pattern.length == 1) {
+            fill(buf, offset, end, pattern[0]);
+            return;
+        }
+        int filled = Math.min(pattern.length, len);
+        buf.setBytes(offset, pattern, 0, filled);
+        repeat(buf, offset, end, filled);
+    }
+
+    /**
+     * Double the first <code>filled</code> bytes of the region until it is full.
+     */
+    private static void repeat(ByteBuf buf, int offset, int end, int filled) {
+        int len = end - offset;
+        while (filled < len) {
+            int chunk = Math.min(filled, len - filled);
+            buf.setBytes(offset + filled, buf, offset, chunk);
+            filled += chunk;
+        }
+    }
+
+    // ----------------------------------------
+    // move
+    // ----------------------------------------
+
+    /**
+     * Copy with memmove semantics: correct even when source and target
+     * are views onto the same memory and the regions overlap.
+     */
+    public static void move(ByteBuf src, int srcIndex, ByteBuf target, int targetIndex, int len) {
+        if (len <= 0) {
+            return;
+        }
+        if (root(src) != root(target)) {
+            target.setBytes(targetIndex, src, srcIndex, len);
+            return;
+        }
+        if (src.hasArray() && target.hasArray()) {
+            // arraycopy is overlap-safe
+            System.arraycopy(src.array(), src.arrayOffset() + srcIndex,
+                    target.array(), target.arrayOffset() + targetIndex, len);
+            return;
+        }
+        if (len <= Scratch.SIZE) {
+            byte[] scratch = Scratch.get();
+            src.getBytes(srcIndex, scratch, 0, len);
+            target.setBytes(targetIndex, scratch, 0, len);
+            return;
+        }
+        // comes from src's allocator, so must go back to its pool
+        ByteBuf copy = src.copy(srcIndex, len);
+        try {
+            target.setBytes(targetIndex, copy);
+        } finally {
+            copy.release();
+        }
+    }
+
+    private static ByteBuf root(ByteBuf buf) {
+        ByteBuf parent;
+        while ((parent = buf.unwrap()) != null) {
+            buf = parent;
+        }
+        return buf;
+    }
+
+    // ----------------------------------------
+    // compare
+    // ----------------------------------------
+
+    /**
+     * Compare two regions as unsigned bytes, like memcmp followed by
+     * a length comparison.
+     *
+     * @return -1, 0 or 1.
+     */
+    public static int compare(ByteBuf a, int aIndex, int aLen, ByteBuf b, int bIndex, int bLen) {
+        int len = Math.min(aLen, bLen);
+        int words = len >>> 3;
+
+        for (int i = 0; i < words; ++i) {
+            long va = a.getLong(aIndex);
+            long vb = b.getLong(bIndex);
+            if (va != vb) {
+                // big-endian words compare like their bytes when unsigned
+                return (va + Long.MIN_VALUE) < (vb + Long.MIN_VALUE) ? -1 : 1;
+            }
+            aIndex += 8;
+            bIndex += 8;
+        }
+
+        for (int i = words << 3; i < len; ++i) {
+            int va = a.getUnsignedByte(aIndex++);
+            int vb = b.getUnsignedByte(bIndex++);
+            if (va != vb) {
+                return va < vb ? -1 : 1;
+            }
+        }
+
+        if (aLen == bLen) {
+            return 0;
+        }
+        return aLen < bLen ? -1 : 1;
+    }
+
+    public static boolean equals(ByteBuf a, int aIndex, ByteBuf b, int bIndex, int len) {
+        return compare(a, aIndex, len, b, bIndex, len) == 0;
+    }
+
+    // ----------------------------------------
+    // search
+    // ----------------------------------------
+
+    public static int indexOf(ByteBuf buf, int from, int to, int value) {
+        long pattern = (value & 0xFFL) * ONES;
+        int i = from;
+
+        for (; i + 8 <= to; i += 8) {
+            // little-endian so the lowest match bit is the first byte in memory
+            long x = Long.reverseBytes(buf.getLong(i)) ^ pattern;
+            long found = (x - ONES) & ~x & HIGHS;
+            if (found != 0) {
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+
+        for (; i < to; ++i) {
+            if ((buf.getByte(i) & 0xFF) == (value & 0xFF)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    public static int indexOf(ByteBuf buf, int from, int to, ByteBuf needle, int needleIndex, int needleLen) {
+        if (needleLen <= 0) {
+            return -1;
+        }
+
+        int first = needle.getUnsignedByte(needleIndex);
+        int last = to - needleLen;
+        int i = from;
+
+        while (i <= last) {
+            i = indexOf(buf, i, last + 1, first);
+            if (i < 0) {
+                return -1;
+            }
+            if (equals(buf, i + 1, needle, needleIndex + 1, needleLen - 1)) {
+                return i;
+            }
+            ++i;
+        }
+
+        return -1;
+    }
+}
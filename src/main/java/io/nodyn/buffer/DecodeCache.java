@@ -0,0 +1,145 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.buffer;
+
+import io.netty.buffer.ByteBuf;
+import org.dynjs.runtime.JSObject;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Returns the same String for repeated decodes of the same short byte
+ * sequence, such as header names or JSON keys.
+ *
+ * <p>The cache is direct-mapped by a hash of the content. A slot is
+ * replaced by storing a new immutable entry, so lookups take no locks,
+ * and a collision simply evicts. Slices longer than {@link #MAX_LENGTH}
+ * bytes are always decoded.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class DecodeCache {
+
+    public static final int MAX_LENGTH = 64;
+
+    private static final Charset UTF8 = StandardCharsets.UTF_8;
+    private static final Charset ASCII = StandardCharsets.US_ASCII;
+
+    private final Entry[] entries;
+    private final int mask;
+
+    private long hits;
+    private long misses;
+
+    public DecodeCache(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("decode cache size must be positive: " + size);
+        }
+        int capacity = Integer.highestOneBit(size);
+        if (capacity < size) {
+            capacity <<= 1;
+        }
+        this.entries = new Entry[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public String utf8Slice(JSObject object, int start, int end) {
+        return decode( Buffer.extract( object ), start, end - start, UTF8 );
+    }
+
+    public String asciiSlice(JSObject object, int start, int end) {
+        return decode( Buffer.extract( object ), start, end - start, ASCII );
+    }
+
+    public String decode(ByteBuf buf, int start, int len, Charset charset) {
+        if (len <= 0 || len > MAX_LENGTH) {
+            return buf.toString( start, len, charset );
+        }
+
+        int hash = hash( buf, start, len );
+        int slot = hash & this.mask;
+        Entry entry = this.entries[slot];
+        if (entry != null && entry.matches( hash, charset, buf, start, len )) {
+            ++this.hits;
+            return entry.value;
+        }
+
+        ++this.misses;
+        byte[] bytes = new byte[len];
+        buf.getBytes( start, bytes );
+        String value = new String( bytes, charset );
+        this.entries[slot] = new Entry( hash, charset, bytes, value );
+        return value;
+    }
+
+    public long getHits() {
+        return this.hits;
+    }
+
+    public long getMisses() {
+        return this.misses;
+    }
+
+    public int getSize() {
+        return this.entries.length;
+    }
+
+    // FNV-1a
+    private static int hash(ByteBuf buf, int start, int len) {
+        int hash = 0x811C9DC5;
+        if (buf.hasArray()) {
+            byte[] array = buf.array();
+            int pos = buf.arrayOffset() + start;
+            for (int i = 0; i < len; ++i) {
+                hash = (hash ^ (array[pos + i] & 0xFF)) * 0x01000193;
+            }
+        } else {
+            for (int i = 0; i < len; ++i) {
+                hash = (hash ^ buf.getUnsignedByte( start + i )) * 0x01000193;
+            }
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static class Entry {
+
+        final int hash;
+        final Charset charset;
+        final byte[] bytes;
+        final String value;
+
+        Entry(int hash, Charset charset, byte[] bytes, String value) {
+            this.hash = hash;
+            this.charset = charset;
+            this.bytes = bytes;
+            this.value = value;
+        }
+
+        boolean matches(int hash, Charset charset, ByteBuf buf, int start, int len) {
+            if (this.hash != hash || this.charset != charset || this.bytes.length != len) {
+                return false;
+            }
+            for (int i = 0; i < len; ++i) {
+                if (this.bytes[i] != buf.getByte( start + i )) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
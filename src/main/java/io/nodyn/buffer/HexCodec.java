@@ -0,0 +1,109 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.buffer;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Table-driven hex conversion between ByteBufs and strings.
+ *
+ * @author Bob McWhirter
+ */
+public class HexCodec {
+
+    private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final byte[] VALUES = new byte[128];
+
+    static {
+        for (int i = 0; i < VALUES.length; ++i) {
+            VALUES[i] = -1;
+        }
+        for (int i = 0; i < 10; ++i) {
+            VALUES['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; ++i) {
+            VALUES['a' + i] = (byte) (10 + i);
+            VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    public static String encode(ByteBuf buf, int start, int end) {
+        int len = end - start;
+        char[] out = new char[len * 2];
+
+        if (buf.hasArray()) {
+            encode(buf.array(), buf.arrayOffset() + start, len, out, 0);
+        } else {
+            byte[] scratch = Scratch.get();
+            int done = 0;
+            while (done < len) {
+                int chunk = Math.min(scratch.length, len - done);
+                buf.getBytes(start + done, scratch, 0, chunk);
+                encode(scratch, 0, chunk, out, done * 2);
+                done += chunk;
+            }
+        }
+
+        return new String(out);
+    }
+
+    private static void encode(byte[] in, int pos, int len, char[] out, int outPos) {
+        int end = pos + len;
+        while (pos < end) {
+            int b = in[pos++] & 0xFF;
+            out[outPos++] = DIGITS[b >>> 4];
+            out[outPos++] = DIGITS[b & 0x0F];
+        }
+    }
+
+    /**
+     * Decode pairs of hex digits into <code>buf</code> at <code>offset</code>,
+     * stopping at <code>max</code> bytes or at the first invalid pair, as node does.
+     *
+     * @return the number of bytes written.
+     */
+    public static int decode(String str, ByteBuf buf, int offset, int max) {
+        int len = Math.min(str.length() / 2, max);
+
+        byte[] array = null;
+        int pos = offset;
+        if (buf.hasArray()) {
+            array = buf.array();
+            pos += buf.arrayOffset();
+        }
+
+        for (int i = 0; i < len; ++i) {
+            int hi = value(str.charAt(i * 2));
+            int lo = value(str.charAt(i * 2 + 1));
+            if (hi < 0 || lo < 0) {
+                return i;
+            }
+            if (array != null) {
+                array[pos + i] = (byte) ((hi << 4) | lo);
+            } else {
+                buf.setByte(pos + i, (hi << 4) | lo);
+            }
+        }
+
+        return len;
+    }
+
+    private static int value(char c) {
+        return c < 128 ? VALUES[c] : -1;
+    }
+}
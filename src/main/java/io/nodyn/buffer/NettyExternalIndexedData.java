@@ -17,34 +17,106 @@
 package io.nodyn.buffer;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.util.internal.PlatformDependent;
 import org.dynjs.runtime.ExternalIndexedData;
 
 /**
+ * Exposes a ByteBuf as the indexed elements of a JavaScript Buffer.
+ *
+ * <p>Whether the buffer is backed by an array or by native memory is
+ * determined once, so indexed access from script avoids the per-call
+ * checks and dispatch of ByteBuf. The writerIndex is not moved on every
+ * indexed write; the high-water mark is applied when the ByteBuf is
+ * handed out through {@link #buffer()}.</p>
+ *
  * @author Bob McWhirter
  */
 public class NettyExternalIndexedData implements ExternalIndexedData {
 
+    private static final Long[] VALUES = new Long[256];
+
+    static {
+        for (int i = 0; i < VALUES.length; ++i) {
+            VALUES[i] = (long) i;
+        }
+    }
+
     private final ByteBuf buf;
+    private final int capacity;
+
+    private final byte[] array;
+    private final int arrayOffset;
+    private final long address;
+
+    private int written;
 
     public NettyExternalIndexedData(ByteBuf buf) {
         this.buf = buf;
+        this.capacity = buf.capacity();
+        if (buf.hasArray()) {
+            this.array = buf.array();
+            this.arrayOffset = buf.arrayOffset();
+            this.address = 0;
+        } else if (buf.hasMemoryAddress() && PlatformDependent.hasUnsafe()) {
+            this.array = null;
+            this.arrayOffset = 0;
+            this.address = buf.memoryAddress();
+        } else {
+            this.array = null;
+            this.arrayOffset = 0;
+            this.address = 0;
+        }
+        this.written = buf.writerIndex();
     }
 
     public ByteBuf buffer() {
+        if (this.written > this.buf.writerIndex()) {
+            this.buf.writerIndex(this.written);
+        }
         return this.buf;
     }
 
+    public int getByte(long l) {
+        if (l < 0 || l >= this.capacity) {
+            return this.buf.getUnsignedByte((int) l);
+        }
+        int i = (int) l;
+        if (this.array != null) {
+            return this.array[this.arrayOffset + i] & 0xFF;
+        }
+        if (this.address != 0) {
+            return PlatformDependent.getByte(this.address + i) & 0xFF;
+        }
+        return this.buf.getUnsignedByte(i);
+    }
+
+    public void setByte(long l, int value) {
+        if (l < 0 || l >= this.capacity) {
+            this.buf.setByte((int) l, value);
+            return;
+        }
+        int i = (int) l;
+        if (this.array != null) {
+            this.array[this.arrayOffset + i] = (byte) value;
+        } else if (this.address != 0) {
+            PlatformDependent.putByte(this.address + i, (byte) value);
+        } else {
+            this.buf.setByte(i, value);
+        }
+        if (i >= this.written) {
+            this.written = i + 1;
+        }
+    }
+
     @Override
     public Object get(long l) {
-        return this.buf.getUnsignedByte((int) l);
+        return VALUES[getByte(l)];
     }
 
     @Override
     public void put(long l, Object o) {
         if (o instanceof Number) {
-            int value = ((Number) o).intValue() & 0xFF;
-            this.buf.setByte((int) l, value);
-            this.buf.writerIndex((int) Math.max( this.buf.writerIndex(), l ));
+            setByte(l, ((Number) o).intValue());
         }
     }
 }
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.buffer;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Encodes strings directly into a ByteBuf without an intermediate byte[].
+ *
+ * <p>Each write encodes as much of the string as fits into <code>max</code>
+ * bytes starting at <code>offset</code>, never splitting a character, and
+ * returns both the number of chars consumed and bytes written packed into
+ * a single long. Use {@link #chars(long)} and {@link #bytes(long)} to
+ * unpack it.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class StringEncoder {
+
+    public static int chars(long result) {
+        return (int) (result >>> 32);
+    }
+
+    public static int bytes(long result) {
+        return (int) result;
+    }
+
+    static long result(int chars, int bytes) {
+        return ((long) chars << 32) | (bytes & 0xFFFFFFFFL);
+    }
+
+    // ----------------------------------------
+    // utf8
+    // ----------------------------------------
+
+    public static long utf8Write(ByteBuf buf, String str, int offset, int max) {
+        return utf8Write(buf, str, 0, offset, max);
+    }
+
+    /**
+     * Encode <code>str</code> from its char <code>from</code>, sparing the
+     * caller a substring.
+     */
+    public static long utf8Write(ByteBuf buf, String str, int from, int offset, int max) {
+        if (buf.hasArray()) {
+            long result = encodeUtf8(str, from, buf.array(), buf.arrayOffset() + offset, max);
+            return result(chars(result) - from, bytes(result));
+        }
+
+        byte[] scratch = Scratch.get();
+        int chars = from;
+        int written = 0;
+        while (chars < str.length() && written < max) {
+            long chunk = encodeUtf8(str, chars, scratch, 0, Math.min(scratch.length, max - written));
+            int len = bytes(chunk);
+            if (len == 0) {
+                break;
+            }
+            buf.setBytes(offset + written, scratch, 0, len);
+            written += len;
+            chars = chars(chunk);
+        }
+        return result(chars - from, written);
+    }
+
+    /**
+     * Encode chars of <code>str</code> starting at <code>from</code>.
+     *
+     * @return the index of the first char not encoded, and the number of bytes written.
+     */
+    private static long encodeUtf8(String str, int from, byte[] out, int pos, int max) {
+        final int strLen = str.length();
+        final int start = pos;
+        final int end = pos + max;
+        int i = from;
+
+        // fast path for the ascii prefix
+        while (i < strLen && pos < end) {
+            char c = str.charAt(i);
+            if (c >= 0x80) {
+                break;
+            }
+            out[pos++] = (byte) c;
+            ++i;
+        }
+
+        while (i < strLen && pos < end) {
+            char c = str.charAt(i);
+            if (c < 0x80) {
+                out[pos++] = (byte) c;
+                ++i;
+            } else if (c < 0x800) {
+                if (pos + 2 > end) {
+                    break;
+                }
+                out[pos++] = (byte) (0xC0 | (c >> 6));
+                out[pos++] = (byte) (0x80 | (c & 0x3F));
+                ++i;
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < strLen && Character.isLowSurrogate(str.charAt(i + 1))) {
+                    if (pos + 4 > end) {
+                        break;
+                    }
+                    int cp = Character.toCodePoint(c, str.charAt(i + 1));
+                    out[pos++] = (byte) (0xF0 | (cp >> 18));
+                    out[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    out[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    out[pos++] = (byte) (0x80 | (cp & 0x3F));
+                    i += 2;
+                } else {
+                    // unpaired surrogate, written as U+FFFD like v8 does
+                    if (pos + 3 > end) {
+                        break;
+                    }
+                    out[pos++] = (byte) 0xEF;
+                    out[pos++] = (byte) 0xBF;
+                    out[pos++] = (byte) 0xBD;
+                    ++i;
+                }
+            } else {
+                if (pos + 3 > end) {
+                    break;
+                }
+                out[pos++] = (byte) (0xE0 | (c >> 12));
+                out[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[pos++] = (byte) (0x80 | (c & 0x3F));
+                ++i;
+            }
+        }
+
+        return result(i, pos - start);
+    }
+
+    public static int utf8Length(String str) {
+        final int strLen = str.length();
+        int len = strLen;
+        for (int i = 0; i < strLen; ++i) {
+            char c = str.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                len += 1;
+            } else if (Character.isHighSurrogate(c) && i + 1 < strLen && Character.isLowSurrogate(str.charAt(i + 1))) {
+                // two chars, four bytes
+                len += 2;
+                ++i;
+            } else {
+                len += 2;
+            }
+        }
+        return len;
+    }
+
+    // ----------------------------------------
+    // ascii & binary
+    // ----------------------------------------
+
+    /**
+     * Write the low byte of each char, as node does for both
+     * 'ascii' and 'binary'.
+     */
+    public static long oneByteWrite(ByteBuf buf, String str, int offset, int max) {
+        return oneByteWrite(buf, str, 0, offset, max);
+    }
+
+    /**
+     * Write the low byte of each char from <code>from</code> on.
+     */
+    public static long oneByteWrite(ByteBuf buf, String str, int from, int offset, int max) {
+        int len = Math.min(str.length() - from, max);
+
+        if (buf.hasArray()) {
+            byte[] out = buf.array();
+            int pos = buf.arrayOffset() + offset;
+            for (int i = 0; i < len; ++i) {
+                out[pos + i] = (byte) str.charAt(from + i);
+            }
+            return result(len, len);
+        }
+
+        byte[] scratch = Scratch.get();
+        int written = 0;
+        while (written < len) {
+            int chunk = Math.min(scratch.length, len - written);
+            for (int i = 0; i < chunk; ++i) {
+                scratch[i] = (byte) str.charAt(from + written + i);
+            }
+            buf.setBytes(offset + written, scratch, 0, chunk);
+            written += chunk;
+        }
+        return result(len, len);
+    }
+
+    // ----------------------------------------
+    // ucs2
+    // ----------------------------------------
+
+    public static long ucs2Write(ByteBuf buf, String str, int offset, int max) {
+        int len = Math.min(str.length(), max / 2);
+
+        if (buf.hasArray()) {
+            byte[] out = buf.array();
+            int pos = buf.arrayOffset() + offset;
+            for (int i = 0; i < len; ++i) {
+                char c = str.charAt(i);
+                out[pos++] = (byte) c;
+                out[pos++] = (byte) (c >> 8);
+            }
+            return result(len, len * 2);
+        }
+
+        for (int i = 0; i < len; ++i) {
+            buf.setShort(offset + (i * 2), Short.reverseBytes((short) str.charAt(i)));
+        }
+        return result(len, len * 2);
+    }
+}
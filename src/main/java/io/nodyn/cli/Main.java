@@ -17,11 +17,14 @@
 package io.nodyn.cli;
 
 import io.nodyn.Nodyn;
+import io.nodyn.loop.ShutdownReport;
+import io.nodyn.runtime.IsolateGroup;
 import io.nodyn.runtime.NodynConfig;
 import io.nodyn.runtime.RuntimeFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 public class Main {
 
@@ -64,6 +67,28 @@ public class Main {
                 "  --trace-deprecation  show stack traces on deprecations\n" +
                 "  --v8-options         print v8 command line options\n" +
                 "  --max-stack-size=val set max v8 stack size (bytes)\n" +
+                "  --buffer-allocator=type\n" +
+                "                       allocate buffer memory as 'unpooled' (default),\n" +
+                "                       'pooled-heap' or 'pooled-direct'\n" +
+                "  --decode-cache=size  share decoded strings for up to size distinct\n" +
+                "                       short utf8/ascii buffer slices (default 0, off)\n" +
+                "  --max-external-memory=size\n" +
+                "                       fail buffer allocations beyond size bytes of\n" +
+                "                       external memory; accepts k, m and g suffixes\n" +
+                "  --loop-mode=mode     run script on its own thread ('executor', default)\n" +
+                "                       or on the I/O thread of its sockets ('pinned')\n" +
+                "  --threadpool-size=n  threads for each of the fs, cpu and dns\n" +
+                "                       blocking pools (default UV_THREADPOOL_SIZE or 4)\n" +
+                "  --threadpool-queue=n tasks queued per pool before rejecting (default 65536)\n" +
+                "  --threadpool-reject=policy\n" +
+                "                       when a pool's queue is full, fail the call ('abort',\n" +
+                "                       default) or run it on the loop thread ('caller-runs')\n" +
+                "  --virtual-threads    run fs and dns work, and stream pumps, on virtual\n" +
+                "                       threads when the JDK has them (21+)\n" +
+                "  --isolates=n         run n copies of the script in this JVM, sharing\n" +
+                "                       listening sockets between them (default 1)\n" +
+                "  --drain-timeout=ms   on termination, stop accepting and wait up to ms\n" +
+                "                       for pending callbacks, writes and fs work (default 0)\n" +
                 "\n" +
                 "Environment variables:\n" +
                 "NODE_PATH              '" + File.pathSeparator + "'-separated list of directories\n" +
@@ -71,6 +96,7 @@ public class Main {
                 "NODE_MODULE_CONTEXTS   Set to 1 to load modules in their own\n" +
                 "                       global contexts.\n" +
                 "NODE_DISABLE_COLORS    Set to 1 to disable colors in the REPL\n" +
+                "UV_THREADPOOL_SIZE     Default size of the blocking thread pools.\n" +
                 "\n" +
                 "Documentation can be found at http://nodejs.org/\n");
         return 0;
@@ -83,7 +109,18 @@ public class Main {
 
     protected int runNormal() {
         RuntimeFactory factory = RuntimeFactory.init(this.config.getClassLoader(), RuntimeFactory.RuntimeType.DYNJS);
+        if (this.config.getIsolates() > 1) {
+            return runIsolates(factory);
+        }
         this.nodyn = factory.newRuntime(config);
+        if (this.config.getDrainTimeout() > 0) {
+            drainOnTermination(new Drainable() {
+                @Override
+                public ShutdownReport shutdownGracefully(long timeout, TimeUnit unit) {
+                    return Main.this.nodyn.getEventLoop().shutdownGracefully(timeout, unit);
+                }
+            });
+        }
         try {
             return this.nodyn.run();
         } catch (Throwable t) {
@@ -92,4 +129,44 @@ public class Main {
 
         return -255;
     }
+
+    protected void drainOnTermination(final Drainable drainable) {
+        final long timeout = this.config.getDrainTimeout();
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    ShutdownReport report = drainable.shutdownGracefully(timeout, TimeUnit.MILLISECONDS);
+                    if (!report.isClean()) {
+                        System.err.println("nodyn: still pending after " + timeout + "ms: " + report);
+                    }
+                } catch (InterruptedException e) {
+                    // the JVM is going down regardless
+                }
+            }
+        }, "drain"));
+    }
+
+    protected int runIsolates(RuntimeFactory factory) {
+        final IsolateGroup isolates = new IsolateGroup(factory, this.config, this.config.getIsolates());
+        if (this.config.getDrainTimeout() > 0) {
+            drainOnTermination(new Drainable() {
+                @Override
+                public ShutdownReport shutdownGracefully(long timeout, TimeUnit unit) throws InterruptedException {
+                    return isolates.shutdownGracefully(timeout, unit);
+                }
+            });
+        }
+        try {
+            return isolates.run();
+        } catch (Throwable t) {
+            t.printStackTrace();
+        }
+
+        return -255;
+    }
+
+    protected interface Drainable {
+        ShutdownReport shutdownGracefully(long timeout, TimeUnit unit) throws InterruptedException;
+    }
 }
@@ -41,7 +41,8 @@ public class Sign {
     }
 
     public void update(ByteBuf buf) {
-        this.data.addComponent(buf);
+        // the buffer may be recycled once script drops it
+        this.data.addComponent(buf.retain());
         this.data.writerIndex(this.data.writerIndex() + buf.writerIndex());
     }
 
@@ -89,6 +90,7 @@ public class Sign {
 
         byte[] dataBytes = new byte[this.data.readableBytes()];
         this.data.getBytes(this.data.readerIndex(), dataBytes);
+        this.data.release();
         CMSProcessableByteArray message = new CMSProcessableByteArray(dataBytes);
 
         CMSSignedData sigData = generator.generate(message);
@@ -38,7 +38,8 @@ public class Verify {
     }
 
     public void update(ByteBuf buf) {
-        this.data.addComponent(buf);
+        // the buffer may be recycled once script drops it
+        this.data.addComponent(buf.retain());
         this.data.writerIndex(this.data.writerIndex() + buf.writerIndex());
     }
 
@@ -67,6 +68,7 @@ public class Verify {
         try {
             byte[] dataBytes = new byte[this.data.readableBytes()];
             this.data.getBytes(this.data.readerIndex(), dataBytes);
+            this.data.release();
             CMSProcessableByteArray message = new CMSProcessableByteArray(dataBytes);
 
             byte[] signatureBytes = new byte[signature.readableBytes()];
@@ -19,6 +19,7 @@ package io.nodyn.dns;
 import io.nodyn.CallbackResult;
 import io.nodyn.EventSource;
 import io.nodyn.NodeProcess;
+import io.nodyn.loop.BlockingLane;
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.AsyncResultHandler;
 import org.vertx.java.core.Handler;
@@ -26,6 +27,7 @@ import org.vertx.java.core.dns.DnsClient;
 
 import java.net.InetSocketAddress;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * @author Bob McWhirter
@@ -53,6 +55,23 @@ public abstract class AbstractQueryWrap extends EventSource {
 
     public abstract void start();
 
+    /**
+     * Run <code>lookup</code> on the dns lane or, if the lane is full,
+     * complete with the rejection from the event loop.
+     */
+    protected void submitLookup(Runnable lookup) {
+        try {
+            this.process.getEventLoop().submitBlockingTask(BlockingLane.DNS, lookup);
+        } catch (final RejectedExecutionException e) {
+            this.process.getEventLoop().submitUserTask(new Runnable() {
+                @Override
+                public void run() {
+                    emit("complete", CallbackResult.createError(e));
+                }
+            }, "dns");
+        }
+    }
+
     protected DnsClient dnsClient() {
         return this.process.getVertx().createDnsClient(getServerAddresses());
     }
@@ -37,7 +37,7 @@ public class GetAddrInfo6Wrap extends AbstractQueryWrap {
     @Override
     public void start() {
         if (this.name.equals("localhost")) {
-            process.getEventLoop().getEventLoopGroup().submit(new Runnable() {
+            submitLookup(new Runnable() {
                 @Override
                 public void run() {
                     try {
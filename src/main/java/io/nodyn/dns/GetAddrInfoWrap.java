@@ -36,7 +36,7 @@ public class GetAddrInfoWrap extends AbstractQueryWrap {
     @Override
     public void start() {
         if (this.name.equals("localhost")) {
-            process.getEventLoop().getEventLoopGroup().submit(new Runnable() {
+            submitLookup(new Runnable() {
                 @Override
                 public void run() {
                     try {
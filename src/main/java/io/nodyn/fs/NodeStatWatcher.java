@@ -36,7 +36,7 @@ public class NodeStatWatcher extends HandleWrap {
             watchedFile = watchedDir;
             watchedDir = watchedFile.getParentFile();
         }
-        thread = new Thread(new Worker());
+        thread = getProcess().getEventLoop().newBlockingThread(new Worker(), "stat-watcher");
         try {
             Path toWatch = Paths.get(watchedDir.getCanonicalPath());
             watcher = toWatch.getFileSystem().newWatchService();
@@ -90,8 +90,40 @@ public class HTTPParser extends EventSource {
 
     }
 
-    private static final Charset UTF8 = Charset.forName("utf8");
-    private static final Charset ASCII = Charset.forName("us-ascii");
+    // as node does, tokens are decoded one byte per char
+    private static final Charset LATIN1 = Charset.forName("iso-8859-1");
+
+    private static final byte[][] METHOD_BYTES = new byte[METHODS.length][];
+    private static final int[][] METHODS_BY_FIRST_BYTE = new int[26][];
+    private static final int CONNECT = Arrays.asList(METHODS).indexOf("CONNECT");
+
+    // messages per batch, before script may pause
+    private static final int MAX_BATCH = 64;
+
+    static {
+        for (int i = 0; i < METHODS.length; ++i) {
+            METHOD_BYTES[i] = METHODS[i].getBytes(LATIN1);
+        }
+        for (int c = 0; c < METHODS_BY_FIRST_BYTE.length; ++c) {
+            List<Integer> candidates = new ArrayList<>();
+            for (int i = 0; i < METHODS.length; ++i) {
+                if (METHODS[i].charAt(0) == 'A' + c) {
+                    candidates.add(i);
+                }
+            }
+            METHODS_BY_FIRST_BYTE[c] = new int[candidates.size()];
+            for (int i = 0; i < candidates.size(); ++i) {
+                METHODS_BY_FIRST_BYTE[c][i] = candidates.get(i);
+            }
+        }
+    }
+
+    private static final byte[] CONTENT_LENGTH = "content-length".getBytes(LATIN1);
+    private static final byte[] TRANSFER_ENCODING = "transfer-encoding".getBytes(LATIN1);
+    private static final byte[] CONNECTION = "connection".getBytes(LATIN1);
+    private static final byte[] UPGRADE = "upgrade".getBytes(LATIN1);
+    private static final byte[] CHUNKED = "chunked".getBytes(LATIN1);
+    private static final byte[] CLOSE = "close".getBytes(LATIN1);
 
     private static enum State {
         REQUEST,
@@ -139,9 +171,16 @@ public class HTTPParser extends EventSource {
 
     private Set<String> expectedTrailers = new HashSet<>();
 
+    // pipelining
+    private boolean paused;
+    private boolean batching;
+    private List<Event> batch = new ArrayList<>();
+    private int batchedMessages;
+
 
     public HTTPParser() {
-        this.buf = Unpooled.compositeBuffer();
+        // never consolidate components into a copy
+        this.buf = Unpooled.compositeBuffer(Integer.MAX_VALUE);
     }
 
     public String type() {
@@ -156,12 +195,25 @@ public class HTTPParser extends EventSource {
 
     public void reinitialize(int type) {
         this.type = type;
+        // drop anything unread, releasing the incoming buffers
+        this.buf.readerIndex(this.buf.writerIndex());
+        this.buf.discardReadComponents();
+        this.batch.clear();
+        this.batchedMessages = 0;
+        this.paused = false;
+        nextMessage();
+    }
+
+    /**
+     * Reset for the next message on the connection, keeping any bytes
+     * already buffered, which may be pipelined messages.
+     */
+    protected void nextMessage() {
         if (this.type == REQUEST) {
             this.state = State.REQUEST;
         } else {
             this.state = State.RESPONSE;
         }
-        this.buf.clear();
         this.method = null;
         this.url = null;
         this.versionMajor = 0;
@@ -215,7 +267,7 @@ public class HTTPParser extends EventSource {
     }
 
     public String[] getTrailers() {
-        return (String[]) this.trailers.toArray(new String[this.headers.size()]);
+        return (String[]) this.trailers.toArray(new String[this.trailers.size()]);
     }
 
     public boolean getShouldKeepAlive() {
@@ -229,6 +281,41 @@ public class HTTPParser extends EventSource {
         }
     }
 
+    /**
+     * Stop parsing at the next message boundary, buffering anything after it.
+     */
+    public void pause() {
+        this.paused = true;
+    }
+
+    /**
+     * Parse any messages buffered while paused.
+     *
+     * @return as for {@link #execute(ByteBuf)}.
+     */
+    public int resume() {
+        this.paused = false;
+        // not an empty execute(), which a response read until EOF takes as the end
+        return parse();
+    }
+
+    public boolean isPaused() {
+        return this.paused;
+    }
+
+    /**
+     * Deliver the events of requests as one <code>batch</code> per {@link #execute(ByteBuf)},
+     * rather than calling back for each. Responses are never batched, since the result of
+     * <code>headersComplete</code> may decide whether a body follows.
+     */
+    public void setBatching(boolean batching) {
+        this.batching = batching;
+    }
+
+    public boolean isBatching() {
+        return this.batching && this.type == REQUEST;
+    }
+
     public void setError(Error error) {
         this.error = error;
     }
@@ -259,14 +346,29 @@ public class HTTPParser extends EventSource {
 
     public int execute(ByteBuf buf) {
         if (buf.readableBytes() == 0 && needsEof()) {
-            finish();
+            completeMessage();
         }
 
         addBuffer(buf);
+        return parse();
+    }
+
+    private int parse() {
         int startingLength = this.buf.readableBytes();
 
         LOOP:
         while (this.buf.readableBytes() > 0) {
+            if (this.shouldReinitialize) {
+                // the bytes after an upgrade belong to the new protocol
+                if (this.upgrade) {
+                    break;
+                }
+                // pipelined, so carry on with the next message
+                nextMessage();
+            }
+            if (this.paused && (this.state == State.REQUEST || this.state == State.RESPONSE)) {
+                break;
+            }
             switch (this.state) {
                 case REQUEST:
                     if (!readRequestLine()) {
@@ -283,27 +385,27 @@ public class HTTPParser extends EventSource {
                 case HEADERS:
                     int headerResult = readHeaders();
                     if (headerResult == 0) {
-                        Object result = emit("headersComplete", CallbackResult.EMPTY_SUCCESS);
+                        Object result = dispatch("headersComplete", snapshot());
                         this.state = State.BODY;
                         if (result instanceof Boolean && ((Boolean) result).booleanValue()) {
                             this.skipBody = true;
                         }
                         if ( this.skipBody ) {
-                            finish();
+                            completeMessage();
                             break LOOP;
                         } else {
                             if ( this.chunked ) {
                                 this.state = State.BODY;
                                 continue LOOP;
                             } else if (this.length == 0) {
-                                finish();
-                                break LOOP;
+                                completeMessage();
+                                continue LOOP;
                             } else if (this.length != Integer.MAX_VALUE) {
                                 this.state = State.BODY;
                             } else {
                                 if ( this.type == REQUEST || ! needsEof() ) {
-                                    finish();
-                                    break LOOP;
+                                    completeMessage();
+                                    continue LOOP;
                                 } else {
                                     this.state = State.BODY;
                                 }
@@ -318,10 +420,9 @@ public class HTTPParser extends EventSource {
                         continue LOOP;
                     }
                     ByteBuf body = readBody();
-                    emit("body", CallbackResult.createSuccess(body));
+                    dispatch("body", body);
                     if ( this.length == 0 ) {
-                        finish();
-                        break LOOP;
+                        completeMessage();
                     }
                     continue LOOP;
                 case CHUNK_START:
@@ -336,7 +437,7 @@ public class HTTPParser extends EventSource {
                     continue LOOP;
                 case CHUNK_BODY:
                     ByteBuf chunkBody = readBody();
-                    emit("body", CallbackResult.createSuccess(chunkBody));
+                    dispatch("body", chunkBody);
                     if (this.length == 0) {
                         this.state = State.CHUNK_END;
                     }
@@ -350,12 +451,16 @@ public class HTTPParser extends EventSource {
                 case TRAILERS:
                     int trailerResult = readTrailers();
                     if (trailerResult == 0) {
-                        finish();
+                        completeMessage();
+                        continue LOOP;
                     }
                     break LOOP;
             }
         }
 
+        // before discarding, as batched bodies are slices of the buffer
+        flushBatch();
+
         if (this.error != null) {
             return -1 * this.error.ordinal();
         }
@@ -363,16 +468,30 @@ public class HTTPParser extends EventSource {
         int endingLength = this.buf.readableBytes();
         int numRead = startingLength - endingLength;
 
+        this.buf.discardReadComponents();
+
         if ( this.shouldReinitialize ) {
-            reinitialize( this.type );
+            if ( this.upgrade ) {
+                reinitialize( this.type );
+            } else {
+                nextMessage();
+            }
         }
 
         return numRead;
     }
 
+    /**
+     * Append <code>buf</code> without copying it. It is retained until
+     * parsed past, so body chunks can be handed out as slices of it.
+     */
     void addBuffer(ByteBuf buf) {
-        this.buf.writeBytes(buf);
-        //this.buf.addComponent( buf );
+        int len = buf.readableBytes();
+        if (len == 0) {
+            return;
+        }
+        this.buf.addComponent(buf.retain());
+        this.buf.writerIndex(this.buf.writerIndex() + len);
     }
 
     int readableBytes() {
@@ -389,7 +508,7 @@ public class HTTPParser extends EventSource {
             return null;
         }
 
-        if (buf.getByte(cr + 1) != '\n') {
+        if (cr + 1 >= readerIndex() + readableBytes() || buf.getByte(cr + 1) != '\n') {
             return null;
         }
 
@@ -405,61 +524,69 @@ public class HTTPParser extends EventSource {
             return false;
         }
 
-        int space = line.indexOf(line.readerIndex(), line.readerIndex() + line.readableBytes(), (byte) ' ');
+        // without the CRLF
+        int end = line.writerIndex() - 2;
+        int pos = line.readerIndex();
+
+        int space = line.indexOf(pos, end, (byte) ' ');
         if (space < 0) {
             setError(Error.INVALID_METHOD);
             return false;
         }
 
-        int len = space - line.readerIndex();
-
-        ByteBuf methodBuf = line.readSlice(len);
-
-        String methodName = methodBuf.toString(UTF8);
-        for (int i = 0; i < METHODS.length; ++i) {
-            if (METHODS[i].equals(methodName)) {
-                this.method = i;
-                break;
-            }
-        }
-
+        this.method = matchMethod(line, pos, space);
         if (this.method == null) {
             setError(Error.INVALID_METHOD);
             return false;
         }
 
-        if ( "CONNECT".equals( methodName ) ) {
+        if (this.method == CONNECT) {
             this.upgrade = true;
         }
 
-        // skip the space
-        line.readByte();
+        pos = space + 1;
+        space = line.indexOf(pos, end, (byte) ' ');
 
-        space = line.indexOf(line.readerIndex(), line.readerIndex() + line.readableBytes(), (byte) ' ');
-
-        ByteBuf urlBuf = null;
-        ByteBuf versionBuf = null;
         if (space < 0) {
             // HTTP/1.0
-            urlBuf = line.readSlice(line.readableBytes());
-        } else {
-            len = space - line.readerIndex();
-            urlBuf = line.readSlice(len);
-            versionBuf = line.readSlice(line.readableBytes());
+            this.url = string(line, pos, end);
+            this.versionMajor = 1;
+            this.versionMinor = 0;
+            return true;
         }
 
-        this.url = urlBuf.toString(UTF8).trim();
+        this.url = string(line, pos, space);
+        if (!readVersion(line, space + 1, end)) {
+            setError(Error.INVALID_VERSION);
+            return false;
+        }
+        return true;
+    }
 
-        if (versionBuf != null) {
-            if (!readVersion(versionBuf)) {
-                setError(Error.INVALID_VERSION);
-                return false;
+    /**
+     * @return the index into {@link #METHODS} of the method spelled by
+     *         the bytes from <code>start</code> to <code>end</code>, or null.
+     */
+    static Integer matchMethod(ByteBuf buf, int start, int end) {
+        int first = buf.getByte(start) - 'A';
+        if (first < 0 || first >= METHODS_BY_FIRST_BYTE.length) {
+            return null;
+        }
+        int len = end - start;
+        CANDIDATES:
+        for (int candidate : METHODS_BY_FIRST_BYTE[first]) {
+            byte[] name = METHOD_BYTES[candidate];
+            if (name.length != len) {
+                continue;
             }
-        } else {
-            this.versionMajor = 1;
-            this.versionMinor = 0;
+            for (int i = 1; i < len; ++i) {
+                if (buf.getByte(start + i) != name[i]) {
+                    continue CANDIDATES;
+                }
+            }
+            return candidate;
         }
-        return true;
+        return null;
     }
 
     protected boolean readStatusLine() {
@@ -469,44 +596,29 @@ public class HTTPParser extends EventSource {
             return false;
         }
 
-        int space = line.indexOf(line.readerIndex(), line.readerIndex() + line.readableBytes(), (byte) ' ');
+        int end = line.writerIndex() - 2;
+        int pos = line.readerIndex();
+
+        int space = line.indexOf(pos, end, (byte) ' ');
 
         if (space < 0) {
             setError(Error.INVALID_VERSION);
             return false;
         }
 
-        int len = space - line.readerIndex();
-
-        ByteBuf versionBuf = line.readSlice(len);
-
-        if (!readVersion(versionBuf)) {
+        if (!readVersion(line, pos, space)) {
             setError(Error.INVALID_VERSION);
             return false;
         }
 
-        // skip space
-        line.readByte();
-
-        space = line.indexOf(line.readerIndex(), line.readerIndex() + line.readableBytes(), (byte) ' ');
-
+        pos = space + 1;
+        space = line.indexOf(pos, end, (byte) ' ');
         if (space < 0) {
-            setError(Error.INVALID_STATUS);
-            return false;
+            // no reason phrase
+            space = end;
         }
 
-        len = space - line.readerIndex();
-
-        ByteBuf statusBuf = line.readSlice(len);
-
-        int status = -1;
-
-        try {
-            status = Integer.parseInt(statusBuf.toString(UTF8));
-        } catch (NumberFormatException e) {
-            setError(Error.INVALID_STATUS);
-            return false;
-        }
+        int status = parseDecimal(line, pos, space);
 
         if (status > 999 || status < 100) {
             setError(Error.INVALID_STATUS);
@@ -514,31 +626,28 @@ public class HTTPParser extends EventSource {
         }
 
         this.statusCode = status;
-
-        // skip space
-        line.readByte();
-
-        ByteBuf messageBuf = line.readSlice(line.readableBytes());
-
-        this.statusMessage = messageBuf.toString(UTF8).trim();
+        this.statusMessage = space < end ? trimmed(line, space + 1, end) : "";
 
         return true;
     }
 
-    protected boolean readVersion(ByteBuf versionBuf) {
-        int dotLoc = versionBuf.indexOf(versionBuf.readerIndex(), versionBuf.readerIndex() + versionBuf.readableBytes(), (byte) '.');
-        if (dotLoc < 0) {
+    /**
+     * Read an "HTTP/x.y" version from the bytes between <code>start</code>
+     * and <code>end</code>.
+     */
+    protected boolean readVersion(ByteBuf buf, int start, int end) {
+        int dotLoc = buf.indexOf(start, end, (byte) '.');
+        if (dotLoc <= start || dotLoc + 1 >= end) {
             return false;
         }
 
-        char majorChar = (char) versionBuf.getByte(dotLoc - 1);
-        char minorChar = (char) versionBuf.getByte(dotLoc + 1);
-        try {
-            this.versionMajor = Integer.parseInt("" + majorChar);
-            this.versionMinor = Integer.parseInt("" + minorChar);
-        } catch (NumberFormatException e) {
+        int major = digit(buf.getByte(dotLoc - 1));
+        int minor = digit(buf.getByte(dotLoc + 1));
+        if (major < 0 || minor < 0) {
             return false;
         }
+        this.versionMajor = major;
+        this.versionMinor = minor;
         return true;
     }
 
@@ -565,70 +674,100 @@ public class HTTPParser extends EventSource {
             }
 
             if (!readHeader(line, target, analyze)) {
-                setError(Error.INVALID_HEADER_TOKEN);
+                if (this.error == null) {
+                    setError(Error.INVALID_HEADER_TOKEN);
+                }
                 return -1;
             }
         }
     }
 
     protected boolean readHeader(ByteBuf line, List<String> target, boolean analyze) {
-        int colonLoc = line.indexOf(line.readerIndex(), line.readerIndex() + line.readableBytes(), (byte) ':');
+        int start = line.readerIndex();
+        int end = line.writerIndex() - 2;
+
+        int colonLoc = line.indexOf(start, end, (byte) ':');
 
         if (colonLoc < 0) {
             // maybe it's a continued header
-            if ( line.readableBytes() > 1 ) {
-                char c = (char) line.getByte(0);
+            if ( end > start && !target.isEmpty() ) {
+                byte c = line.getByte(start);
                 if ( c == ' ' || c == '\t' ) {
                     // it IS a continued header value
-                    int lastIndex = this.headers.size() - 1;
-                    String val = this.headers.get( lastIndex );
-                    val = val + " " + line.toString( ASCII ).trim();
-                    this.headers.set( lastIndex, val );
+                    int lastIndex = target.size() - 1;
+                    target.set( lastIndex, target.get( lastIndex ) + " " + trimmed( line, start, end ) );
                     return true;
                 }
             }
             return false;
         }
 
-        int len = colonLoc - line.readerIndex();
-        ByteBuf keyBuf = line.readSlice(len);
-
-        // skip colon
-        line.readByte();
+        int nameStart = skipWhitespace(line, start, colonLoc);
+        int nameEnd = trimWhitespace(line, nameStart, colonLoc);
+        int valueStart = skipWhitespace(line, colonLoc + 1, end);
+        int valueEnd = trimWhitespace(line, valueStart, end);
 
-        ByteBuf valueBuf = line.readSlice(line.readableBytes());
+        // well-known names and values come back as shared strings
+        HeaderTokens.Token name = HeaderTokens.name(line, nameStart, nameEnd);
+        String value = HeaderTokens.value(line, valueStart, valueEnd);
 
-        String key = keyBuf.toString(UTF8).trim();
-        String value = valueBuf.toString(UTF8).trim();
-
-        target.add(key);
-        target.add(value);
+        target.add(name != null ? name.text : string(line, nameStart, nameEnd));
+        target.add(value != null ? value : string(line, valueStart, valueEnd));
 
         if (analyze) {
-            return analyzeHeader(key.toLowerCase(), value);
+            int kind = name != null ? name.kind : kindOf(line, nameStart, nameEnd);
+            return analyzeHeader(kind, line, valueStart, valueEnd);
         }
 
         return true;
     }
 
-    protected boolean analyzeHeader(String name, String value) {
-        if ("content-length".equals(name)) {
-            try {
-                this.length = Integer.parseInt(value);
-            } catch (NumberFormatException e) {
-                setError(Error.INVALID_CONTENT_LENGTH);
-                return false;
-            }
-        } else if ("transfer-encoding".equals(name)) {
-            if (value.toLowerCase().contains("chunked")) {
-                this.chunked = true;
-            }
-        } else if ("connection".equals(name)) {
-            if (value.toLowerCase().contains("close")) {
-                this.shouldKeepAlive = false;
-            }
-        } else if ( "upgrade".equals(name) ) {
-            this.upgrade = true;
+    /**
+     * Classify a header name not found among the {@link HeaderTokens}, such as one in unusual case.
+     */
+    static int kindOf(ByteBuf line, int nameStart, int nameEnd) {
+        if (equalsIgnoreCase(line, nameStart, nameEnd, CONTENT_LENGTH)) {
+            return HeaderTokens.CONTENT_LENGTH;
+        }
+        if (equalsIgnoreCase(line, nameStart, nameEnd, TRANSFER_ENCODING)) {
+            return HeaderTokens.TRANSFER_ENCODING;
+        }
+        if (equalsIgnoreCase(line, nameStart, nameEnd, CONNECTION)) {
+            return HeaderTokens.CONNECTION;
+        }
+        if (equalsIgnoreCase(line, nameStart, nameEnd, UPGRADE)) {
+            return HeaderTokens.UPGRADE;
+        }
+        return HeaderTokens.OTHER;
+    }
+
+    /**
+     * Act on the headers which affect parsing, comparing bytes rather than strings.
+     */
+    protected boolean analyzeHeader(int kind, ByteBuf line, int valueStart, int valueEnd) {
+        switch (kind) {
+            case HeaderTokens.CONTENT_LENGTH:
+                int length = parseDecimal(line, valueStart, valueEnd);
+                if (length < 0) {
+                    setError(Error.INVALID_CONTENT_LENGTH);
+                    return false;
+                }
+                this.length = length;
+                break;
+            case HeaderTokens.TRANSFER_ENCODING:
+                if (containsIgnoreCase(line, valueStart, valueEnd, CHUNKED)) {
+                    this.chunked = true;
+                }
+                break;
+            case HeaderTokens.CONNECTION:
+                if (containsIgnoreCase(line, valueStart, valueEnd, CLOSE)) {
+                    this.shouldKeepAlive = false;
+                }
+                break;
+            case HeaderTokens.UPGRADE:
+                this.upgrade = true;
+                break;
+            default:
         }
 
         return true;
@@ -640,14 +779,29 @@ public class HTTPParser extends EventSource {
             return false;
         }
 
-        try {
-            int len = Integer.parseInt(line.toString(UTF8).trim(), 16);
-            this.length = len;
-        } catch (NumberFormatException e) {
+        int start = skipWhitespace(line, line.readerIndex(), line.writerIndex() - 2);
+        int end = start;
+        int len = 0;
+        // stop at any chunk extension
+        while (end < line.writerIndex() - 2) {
+            int digit = hexDigit(line.getByte(end));
+            if (digit < 0) {
+                break;
+            }
+            if (len > (Integer.MAX_VALUE >> 4)) {
+                setError(Error.INVALID_CHUNK_SIZE);
+                return false;
+            }
+            len = (len << 4) | digit;
+            ++end;
+        }
+
+        if (end == start) {
             setError(Error.INVALID_CHUNK_SIZE);
             return false;
         }
 
+        this.length = len;
         return true;
     }
 
@@ -667,22 +821,133 @@ public class HTTPParser extends EventSource {
 
     }
 
+    /**
+     * Read as much of the body as is available, up to the end of the
+     * current incoming buffer.
+     *
+     * @return a slice of the incoming buffer, sharing its memory and its
+     *         reference count, so the caller may retain it beyond this parse.
+     */
     protected ByteBuf readBody() {
-        ByteBuf data = null;
-        if (this.buf.readableBytes() <= this.length) {
-            data = this.buf.readSlice(this.buf.readableBytes());
-            this.length -= data.readableBytes();
-        } else {
-            data = this.buf.readSlice(this.length);
-            this.length = 0;
-        }
+        int readerIndex = this.buf.readerIndex();
+        int cIndex = this.buf.toComponentIndex(readerIndex);
+        int offset = readerIndex - this.buf.toByteIndex(cIndex);
+        ByteBuf component = this.buf.component(cIndex);
+
+        int len = Math.min(component.readableBytes() - offset, this.length);
+        ByteBuf data = component.slice(component.readerIndex() + offset, len);
+        this.buf.skipBytes(len);
+        this.length -= len;
 
         return data;
     }
 
+    // ----------------------------------------
+    // byte-level helpers; ranges are [start, end)
+    // ----------------------------------------
+
+    static String string(ByteBuf buf, int start, int end) {
+        return buf.toString(start, end - start, LATIN1);
+    }
+
+    static String trimmed(ByteBuf buf, int start, int end) {
+        start = skipWhitespace(buf, start, end);
+        return string(buf, start, trimWhitespace(buf, start, end));
+    }
+
+    static int skipWhitespace(ByteBuf buf, int start, int end) {
+        while (start < end && isWhitespace(buf.getByte(start))) {
+            ++start;
+        }
+        return start;
+    }
+
+    static int trimWhitespace(ByteBuf buf, int start, int end) {
+        while (end > start && isWhitespace(buf.getByte(end - 1))) {
+            --end;
+        }
+        return end;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    private static int digit(byte b) {
+        return (b >= '0' && b <= '9') ? b - '0' : -1;
+    }
+
+    private static int hexDigit(byte b) {
+        if (b >= '0' && b <= '9') {
+            return b - '0';
+        }
+        if (b >= 'a' && b <= 'f') {
+            return b - 'a' + 10;
+        }
+        if (b >= 'A' && b <= 'F') {
+            return b - 'A' + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the non-negative decimal spelled by the bytes, or -1 if it is empty, invalid or too large.
+     */
+    static int parseDecimal(ByteBuf buf, int start, int end) {
+        if (start >= end) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < end; ++i) {
+            int digit = digit(buf.getByte(i));
+            if (digit < 0) {
+                return -1;
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE) {
+                return -1;
+            }
+        }
+        return (int) value;
+    }
+
+    private static byte lower(byte b) {
+        return (b >= 'A' && b <= 'Z') ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    /**
+     * @param lower the token to compare with, in lower case.
+     */
+    static boolean equalsIgnoreCase(ByteBuf buf, int start, int end, byte[] lower) {
+        if (end - start != lower.length) {
+            return false;
+        }
+        for (int i = 0; i < lower.length; ++i) {
+            if (lower(buf.getByte(start + i)) != lower[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean containsIgnoreCase(ByteBuf buf, int start, int end, byte[] lower) {
+        for (int i = start; i + lower.length <= end; ++i) {
+            if (equalsIgnoreCase(buf, i, i + lower.length, lower)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public void finish() {
+        completeMessage();
+        flushBatch();
+    }
+
+    protected void completeMessage() {
         if ( this.type == RESPONSE && this.statusCode == 100 ) {
-            reinitialize(RESPONSE);
+            // the final response may follow in the same buffer
+            nextMessage();
             return;
         }
 
@@ -690,9 +955,121 @@ public class HTTPParser extends EventSource {
             return;
         }
 
-        emit("messageComplete", CallbackResult.EMPTY_SUCCESS);
+        dispatch("messageComplete", isBatching() ? getTrailers() : null);
         this.shouldReinitialize = true;
+    }
+
+    /**
+     * Call back now or, when batching, queue the event until the end of {@link #execute(ByteBuf)}.
+     */
+    protected Object dispatch(String event, Object result) {
+        if (!isBatching()) {
+            if (result instanceof ByteBuf) {
+                return emit(event, CallbackResult.createSuccess(result));
+            }
+            // script reads the rest from the parser itself
+            return emit(event, CallbackResult.EMPTY_SUCCESS);
+        }
+
+        this.batch.add(new Event(event, result));
+        if (event.equals("messageComplete") && ++this.batchedMessages >= MAX_BATCH) {
+            // give script the chance to pause a flood of pipelined requests
+            flushBatch();
+        }
+        return null;
+    }
+
+    protected void flushBatch() {
+        if (this.batch.isEmpty()) {
+            return;
+        }
+        Event[] events = this.batch.toArray(new Event[this.batch.size()]);
+        this.batch.clear();
+        this.batchedMessages = 0;
+        emit("batch", CallbackResult.createSuccess((Object) events));
+    }
+
+    protected Message snapshot() {
+        if (!isBatching()) {
+            return null;
+        }
+        return new Message(this.method, this.url, this.versionMajor, this.versionMinor,
+                getShouldKeepAlive(), this.upgrade, getHeaders());
+    }
+
+    /**
+     * A callback deferred while batching.
+     */
+    public static class Event {
 
+        private final String name;
+        private final Object result;
+
+        Event(String name, Object result) {
+            this.name = name;
+            this.result = result;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public Object getResult() {
+            return this.result;
+        }
+    }
+
+    /**
+     * The request line and headers of a batched request, as they were when its headers completed.
+     */
+    public static class Message {
+
+        private final Integer method;
+        private final String url;
+        private final int versionMajor;
+        private final int versionMinor;
+        private final boolean shouldKeepAlive;
+        private final boolean upgrade;
+        private final String[] headers;
+
+        Message(Integer method, String url, int versionMajor, int versionMinor,
+                boolean shouldKeepAlive, boolean upgrade, String[] headers) {
+            this.method = method;
+            this.url = url;
+            this.versionMajor = versionMajor;
+            this.versionMinor = versionMinor;
+            this.shouldKeepAlive = shouldKeepAlive;
+            this.upgrade = upgrade;
+            this.headers = headers;
+        }
+
+        public Integer getMethod() {
+            return this.method;
+        }
+
+        public String getUrl() {
+            return this.url;
+        }
+
+        public int getVersionMajor() {
+            return this.versionMajor;
+        }
+
+        public int getVersionMinor() {
+            return this.versionMinor;
+        }
+
+        public boolean getShouldKeepAlive() {
+            return this.shouldKeepAlive;
+        }
+
+        public boolean getUpgrade() {
+            return this.upgrade;
+        }
+
+        public String[] getHeaders() {
+            return this.headers;
+        }
     }
 
 }
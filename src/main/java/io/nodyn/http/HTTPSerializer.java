@@ -0,0 +1,313 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.http;
+
+import io.netty.buffer.ByteBuf;
+import io.nodyn.buffer.StringEncoder;
+import io.nodyn.smalloc.BufferAllocator;
+
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Writes the head and chunked framing of outgoing messages straight into
+ * buffers from the {@link BufferAllocator}, rather than having script
+ * build strings which are then encoded and copied on their way out.
+ *
+ * <p>Status lines for the standard codes are encoded once, and the Date
+ * header is formatted at most once a second and shared by every
+ * message.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class HTTPSerializer {
+
+    private static final Charset LATIN1 = Charset.forName("iso-8859-1");
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    // as node's http.STATUS_CODES
+    private static final String[] REASONS = new String[600];
+
+    static {
+        REASONS[100] = "Continue";
+        REASONS[101] = "Switching Protocols";
+        REASONS[102] = "Processing";
+        REASONS[200] = "OK";
+        REASONS[201] = "Created";
+        REASONS[202] = "Accepted";
+        REASONS[203] = "Non-Authoritative Information";
+        REASONS[204] = "No Content";
+        REASONS[205] = "Reset Content";
+        REASONS[206] = "Partial Content";
+        REASONS[207] = "Multi-Status";
+        REASONS[300] = "Multiple Choices";
+        REASONS[301] = "Moved Permanently";
+        REASONS[302] = "Moved Temporarily";
+        REASONS[303] = "See Other";
+        REASONS[304] = "Not Modified";
+        REASONS[305] = "Use Proxy";
+        REASONS[307] = "Temporary Redirect";
+        REASONS[308] = "Permanent Redirect";
+        REASONS[400] = "Bad Request";
+        REASONS[401] = "Unauthorized";
+        REASONS[402] = "Payment Required";
+        REASONS[403] = "Forbidden";
+        REASONS[404] = "Not Found";
+        REASONS[405] = "Method Not Allowed";
+        REASONS[406] = "Not Acceptable";
+        REASONS[407] = "Proxy Authentication Required";
+        REASONS[408] = "Request Time-out";
+        REASONS[409] = "Conflict";
+        REASONS[410] = "Gone";
+        REASONS[411] = "Length Required";
+        REASONS[412] = "Precondition Failed";
+        REASONS[413] = "Request Entity Too Large";
+        REASONS[414] = "Request-URI Too Large";
+        REASONS[415] = "Unsupported Media Type";
+        REASONS[416] = "Requested Range Not Satisfiable";
+        REASONS[417] = "Expectation Failed";
+        REASONS[418] = "I'm a teapot";
+        REASONS[422] = "Unprocessable Entity";
+        REASONS[423] = "Locked";
+        REASONS[424] = "Failed Dependency";
+        REASONS[425] = "Unordered Collection";
+        REASONS[426] = "Upgrade Required";
+        REASONS[428] = "Precondition Required";
+        REASONS[429] = "Too Many Requests";
+        REASONS[431] = "Request Header Fields Too Large";
+        REASONS[500] = "Internal Server Error";
+        REASONS[501] = "Not Implemented";
+        REASONS[502] = "Bad Gateway";
+        REASONS[503] = "Service Unavailable";
+        REASONS[504] = "Gateway Time-out";
+        REASONS[505] = "HTTP Version Not Supported";
+        REASONS[506] = "Variant Also Negotiates";
+        REASONS[507] = "Insufficient Storage";
+        REASONS[509] = "Bandwidth Limit Exceeded";
+        REASONS[510] = "Not Extended";
+        REASONS[511] = "Network Authentication Required";
+    }
+
+    private static final String[] STATUS_LINES = new String[REASONS.length];
+    private static final byte[][] STATUS_LINE_BYTES = new byte[REASONS.length][];
+
+    static {
+        for (int i = 0; i < REASONS.length; ++i) {
+            if (REASONS[i] != null) {
+                STATUS_LINES[i] = "HTTP/1.1 " + i + " " + REASONS[i] + "\r\n";
+                STATUS_LINE_BYTES[i] = STATUS_LINES[i].getBytes(LATIN1);
+            }
+        }
+    }
+
+    private static volatile CachedDate date;
+
+    private final BufferAllocator allocator;
+
+    public HTTPSerializer(BufferAllocator allocator) {
+        this.allocator = allocator;
+    }
+
+    /**
+     * @return the value for the Date header, as node's <code>utcDate()</code>.
+     */
+    public static String getDate() {
+        long second = System.currentTimeMillis() / 1000;
+        CachedDate current = date;
+        if (current == null || current.second != second) {
+            current = new CachedDate(second);
+            date = current;
+        }
+        return current.value;
+    }
+
+    /**
+     * @return the status line node's server writes for <code>statusCode</code>,
+     *         with its standard reason, or null for a code without one.
+     */
+    public static String statusLine(int statusCode) {
+        if (statusCode < 0 || statusCode >= STATUS_LINES.length) {
+            return null;
+        }
+        return STATUS_LINES[statusCode];
+    }
+
+    /**
+     * Encode the head of a message followed by the first of its body.
+     *
+     * @param header     the status or request line and headers, through the blank line.
+     * @param statusCode the status of a response, or 0 for a request.
+     * @param data       the body, encoded as the head is, as node would when joining them.
+     * @return the buffer, or null if <code>encoding</code> is not handled here.
+     */
+    public ByteBuf head(String header, int statusCode, String data, String encoding) {
+        return head(header, statusCode, data, encoding, false);
+    }
+
+    /**
+     * Encode the head of a chunked message followed by its first chunk,
+     * framed as {@link #chunk(String, String)} does.
+     *
+     * @return the buffer, or null if <code>encoding</code> is not handled here.
+     */
+    public ByteBuf headAndChunk(String header, int statusCode, String data, String encoding) {
+        return head(header, statusCode, data, encoding, true);
+    }
+
+    private ByteBuf head(String header, int statusCode, String data, String encoding, boolean chunked) {
+        encoding = normalize(encoding);
+        int dataLength = byteLength(data, encoding);
+        if (dataLength < 0) {
+            return null;
+        }
+        int headerLength = byteLength(header, encoding);
+        int framingLength = chunked ? chunkSizeLength(dataLength) + CRLF.length : 0;
+
+        ByteBuf buf = this.allocator.buffer(headerLength + framingLength + dataLength);
+
+        // the cached line is the bytes of the one-byte and utf8 encodings only
+        int from = 0;
+        String statusLine = statusLine(statusCode);
+        if (statusLine != null && !isUcs2(encoding) && header.startsWith(statusLine)) {
+            buf.writeBytes(STATUS_LINE_BYTES[statusCode]);
+            from = statusLine.length();
+        }
+        write(buf, header, from, encoding);
+        if (chunked) {
+            writeChunkSize(buf, dataLength);
+        }
+        write(buf, data, 0, encoding);
+        if (chunked) {
+            buf.writeBytes(CRLF);
+        }
+        return buf;
+    }
+
+    /**
+     * Frame <code>data</code> as a single chunk: its size in hex, the data and a CRLF.
+     *
+     * @return the buffer, or null if <code>encoding</code> is not handled here.
+     */
+    public ByteBuf chunk(String data, String encoding) {
+        encoding = normalize(encoding);
+        int dataLength = byteLength(data, encoding);
+        if (dataLength < 0) {
+            return null;
+        }
+        ByteBuf buf = this.allocator.buffer(chunkSizeLength(dataLength) + dataLength + CRLF.length);
+        writeChunkSize(buf, dataLength);
+        write(buf, data, 0, encoding);
+        buf.writeBytes(CRLF);
+        return buf;
+    }
+
+    static int chunkSizeLength(int len) {
+        // hex digits, and the CRLF
+        int digits = Math.max(1, (32 - Integer.numberOfLeadingZeros(len) + 3) / 4);
+        return digits + CRLF.length;
+    }
+
+    static void writeChunkSize(ByteBuf buf, int len) {
+        int digits = chunkSizeLength(len) - CRLF.length;
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            buf.writeByte(Character.forDigit((len >>> shift) & 0xF, 16));
+        }
+        buf.writeBytes(CRLF);
+    }
+
+    private static String normalize(String encoding) {
+        if (encoding == null) {
+            return "utf8";
+        }
+        return encoding.toLowerCase(Locale.US);
+    }
+
+    /**
+     * @return the bytes <code>str</code> encodes to, or -1 for an encoding not handled here.
+     */
+    static int byteLength(String str, String encoding) {
+        switch (encoding) {
+            case "utf8":
+            case "utf-8":
+                return StringEncoder.utf8Length(str);
+            case "ascii":
+            case "binary":
+                return str.length();
+            case "ucs2":
+            case "ucs-2":
+            case "utf16le":
+            case "utf-16le":
+                return str.length() * 2;
+            default:
+                return -1;
+        }
+    }
+
+    private static boolean isUcs2(String encoding) {
+        switch (encoding) {
+            case "ucs2":
+            case "ucs-2":
+            case "utf16le":
+            case "utf-16le":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Write <code>str</code> from its char <code>from</code>, which is 0 for ucs2.
+     */
+    private static void write(ByteBuf buf, String str, int from, String encoding) {
+        int offset = buf.writerIndex();
+        int max = buf.writableBytes();
+        long result;
+        switch (encoding) {
+            case "ascii":
+            case "binary":
+                result = StringEncoder.oneByteWrite(buf, str, from, offset, max);
+                break;
+            case "ucs2":
+            case "ucs-2":
+            case "utf16le":
+            case "utf-16le":
+                result = StringEncoder.ucs2Write(buf, str, offset, max);
+                break;
+            default:
+                result = StringEncoder.utf8Write(buf, str, from, offset, max);
+        }
+        buf.writerIndex(offset + StringEncoder.bytes(result));
+    }
+
+    private static class CachedDate {
+
+        final long second;
+        final String value;
+
+        CachedDate(long second) {
+            // formatted once a second, so not worth sharing a formatter between threads
+            SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US);
+            format.setTimeZone(TimeZone.getTimeZone("GMT"));
+            this.second = second;
+            this.value = format.format(new Date(second * 1000));
+        }
+    }
+}
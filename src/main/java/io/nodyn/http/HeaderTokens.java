@@ -0,0 +1,238 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.http;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared Strings for well-known header names and values, found by a
+ * perfect hash of a few of their bytes, so the parser need not decode
+ * them for every message.
+ *
+ * <p>Matches are exact, byte for byte, so script sees the header as it
+ * was sent. Names are known in their usual capitalization and in lower
+ * case; anything else is decoded as usual.</p>
+ *
+ * @author Bob McWhirter
+ */
+class HeaderTokens {
+
+    static final int OTHER = 0;
+    static final int CONTENT_LENGTH = 1;
+    static final int TRANSFER_ENCODING = 2;
+    static final int CONNECTION = 3;
+    static final int UPGRADE = 4;
+
+    static class Token {
+        final String text;
+        final int kind;
+        final byte[] bytes;
+
+        Token(String text, int kind) {
+            this.text = text;
+            this.kind = kind;
+            this.bytes = text.getBytes(LATIN1);
+        }
+    }
+
+    private static final Charset LATIN1 = Charset.forName("iso-8859-1");
+
+    private static final String[] NAMES = {
+            "Accept",
+            "Accept-Charset",
+            "Accept-Encoding",
+            "Accept-Language",
+            "Accept-Ranges",
+            "Age",
+            "Authorization",
+            "Cache-Control",
+            "Connection",
+            "Content-Encoding",
+            "Content-Language",
+            "Content-Length",
+            "Content-Type",
+            "Cookie",
+            "Date",
+            "ETag",
+            "Expect",
+            "Expires",
+            "Host",
+            "If-Modified-Since",
+            "If-None-Match",
+            "Keep-Alive",
+            "Last-Modified",
+            "Location",
+            "Origin",
+            "Pragma",
+            "Proxy-Connection",
+            "Range",
+            "Referer",
+            "Server",
+            "Set-Cookie",
+            "Transfer-Encoding",
+            "Upgrade",
+            "User-Agent",
+            "Vary",
+            "Via",
+            "X-Forwarded-For",
+            "X-Forwarded-Proto",
+            "X-Requested-With",
+    };
+
+    private static final String[] VALUES = {
+            "*/*",
+            "0",
+            "100-continue",
+            "application/json",
+            "application/x-www-form-urlencoded",
+            "bytes",
+            "chunked",
+            "close",
+            "deflate",
+            "gzip",
+            "gzip, deflate",
+            "identity",
+            "keep-alive",
+            "Keep-Alive",
+            "localhost",
+            "max-age=0",
+            "no-cache",
+            "text/html",
+            "text/plain",
+            "upgrade",
+            "Upgrade",
+            "websocket",
+    };
+
+    private static final Table NAME_TABLE;
+    private static final Table VALUE_TABLE;
+
+    static {
+        List<Token> names = new ArrayList<>();
+        for (String name : NAMES) {
+            names.add(new Token(name, kindOf(name)));
+            String lower = name.toLowerCase().intern();
+            if (!lower.equals(name)) {
+                names.add(new Token(lower, kindOf(name)));
+            }
+        }
+        NAME_TABLE = new Table(names);
+
+        List<Token> values = new ArrayList<>();
+        for (String value : VALUES) {
+            values.add(new Token(value, OTHER));
+        }
+        VALUE_TABLE = new Table(values);
+    }
+
+    private static int kindOf(String name) {
+        switch (name) {
+            case "Content-Length":
+                return CONTENT_LENGTH;
+            case "Transfer-Encoding":
+                return TRANSFER_ENCODING;
+            case "Connection":
+                return CONNECTION;
+            case "Upgrade":
+                return UPGRADE;
+            default:
+                return OTHER;
+        }
+    }
+
+    /**
+     * @return the known header name spelled by the bytes from <code>start</code> to <code>end</code>, or null.
+     */
+    static Token name(ByteBuf buf, int start, int end) {
+        return NAME_TABLE.lookup(buf, start, end);
+    }
+
+    /**
+     * @return the shared String for a known header value, or null.
+     */
+    static String value(ByteBuf buf, int start, int end) {
+        Token token = VALUE_TABLE.lookup(buf, start, end);
+        return token == null ? null : token.text;
+    }
+
+    private static class Table {
+
+        private final Token[] slots;
+        private final int seed;
+        private final int mask;
+
+        Table(List<Token> tokens) {
+            // find a seed with no collisions; the table is sparse, so this is quick
+            int size = Integer.highestOneBit(tokens.size() * 8);
+            for (int seed = 1; seed < 100000; ++seed) {
+                Token[] slots = new Token[size];
+                boolean collision = false;
+                for (Token token : tokens) {
+                    int slot = hash(seed, token.bytes) & (size - 1);
+                    if (slots[slot] != null) {
+                        collision = true;
+                        break;
+                    }
+                    slots[slot] = token;
+                }
+                if (!collision) {
+                    this.slots = slots;
+                    this.seed = seed;
+                    this.mask = size - 1;
+                    return;
+                }
+            }
+            throw new IllegalStateException("no perfect hash for header tokens");
+        }
+
+        Token lookup(ByteBuf buf, int start, int end) {
+            int len = end - start;
+            if (len <= 0) {
+                return null;
+            }
+            int h = mix(this.seed, len, buf.getByte(start), buf.getByte(start + len / 2), buf.getByte(end - 1));
+            Token token = this.slots[h & this.mask];
+            if (token == null || token.bytes.length != len) {
+                return null;
+            }
+            for (int i = 0; i < len; ++i) {
+                if (buf.getByte(start + i) != token.bytes[i]) {
+                    return null;
+                }
+            }
+            return token;
+        }
+
+        private static int hash(int seed, byte[] bytes) {
+            int len = bytes.length;
+            return mix(seed, len, bytes[0], bytes[len / 2], bytes[len - 1]);
+        }
+
+        private static int mix(int seed, int len, byte first, byte middle, byte last) {
+            int h = seed * 0x9E3779B9;
+            h = (h ^ len) * 0x01000193;
+            h = (h ^ first) * 0x01000193;
+            h = (h ^ middle) * 0x01000193;
+            h = (h ^ last) * 0x01000193;
+            return h ^ (h >>> 15);
+        }
+    }
+}
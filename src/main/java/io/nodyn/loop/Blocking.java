@@ -16,6 +16,8 @@
 
 package io.nodyn.loop;
 
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * @author Bob McWhirter
  */
@@ -28,14 +30,40 @@ public class Blocking {
     }
 
     public void submit(final Runnable action) {
-        final RefHandle handle = this.eventLoop.newHandle( "blocking" );
-        this.eventLoop.submitBlockingTask(new Runnable() {
-            @Override
-            public void run() {
-                action.run();
-                handle.unref();
-            }
-        });
+        submit(BlockingLane.FS, action);
+    }
+
+    public void submit(String lane, final Runnable action) {
+        submit(BlockingLane.forName(lane), action);
+    }
+
+    /**
+     * Submit <code>action</code> or, if the lane is full and rejects it, run
+     * <code>rejected</code> on the event loop, so that an asynchronous
+     * caller is told through its callback rather than by a throw.
+     */
+    public void submit(String lane, final Runnable action, final Runnable rejected) {
+        try {
+            submit(BlockingLane.forName(lane), action);
+        } catch (RejectedExecutionException e) {
+            unblock(rejected);
+        }
+    }
+
+    public void submit(BlockingLane lane, final Runnable action) {
+        final RefHandle handle = this.eventLoop.newHandle( "blocking-" + lane.getName() );
+        try {
+            this.eventLoop.submitBlockingTask(lane, new Runnable() {
+                @Override
+                public void run() {
+                    action.run();
+                    handle.unref();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            handle.unref();
+            throw e;
+        }
     }
 
     public void unblock(final Runnable action) {
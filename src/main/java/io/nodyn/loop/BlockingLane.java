@@ -0,0 +1,54 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.loop;
+
+/**
+ * Separate sets of threads for blocking work, so that long CPU-bound tasks
+ * cannot hold up short I/O.
+ *
+ * @author Bob McWhirter
+ */
+public enum BlockingLane {
+
+    /** Filesystem calls. */
+    FS("fs"),
+
+    /** CPU-bound work such as crypto and zlib. */
+    CPU("cpu"),
+
+    /** Blocking name resolution. */
+    DNS("dns");
+
+    private final String name;
+
+    BlockingLane(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public static BlockingLane forName(String name) {
+        for (BlockingLane each : values()) {
+            if (each.name.equals(name)) {
+                return each;
+            }
+        }
+        throw new IllegalArgumentException("unknown blocking lane: " + name);
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.loop;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-size thread pools, one per {@link BlockingLane}, each with a
+ * bounded queue, in the spirit of libuv's threadpool.
+ *
+ * <p>When a lane's queue is full, a submission either fails with a
+ * RejectedExecutionException ("abort") or runs on the submitting thread
+ * ("caller-runs"), which pushes back on the event loop.</p>
+ *
+ * <p>With virtual threads, the fs and dns lanes instead start a virtual
+ * thread per task, unbounded, since their tasks spend their time waiting
+ * rather than computing. The cpu lane always stays bounded.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class BlockingPool {
+
+    public static final int DEFAULT_SIZE = 4;
+    public static final int DEFAULT_QUEUE_SIZE = 65536;
+
+    public enum Rejection {
+
+        ABORT("abort"),
+        CALLER_RUNS("caller-runs");
+
+        private final String name;
+
+        Rejection(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public static Rejection forName(String name) {
+            for (Rejection each : values()) {
+                if (each.name.equals(name)) {
+                    return each;
+                }
+            }
+            throw new IllegalArgumentException("unknown rejection policy: " + name);
+        }
+    }
+
+    private final Map<BlockingLane, ThreadPoolExecutor> lanes = new EnumMap<>(BlockingLane.class);
+    private final Map<BlockingLane, VirtualLane> virtualLanes = new EnumMap<>(BlockingLane.class);
+    private final boolean virtual;
+
+    public BlockingPool() {
+        this(DEFAULT_SIZE, DEFAULT_QUEUE_SIZE, Rejection.ABORT);
+    }
+
+    public BlockingPool(int size, int queueSize, Rejection rejection) {
+        this(size, queueSize, rejection, false);
+    }
+
+    /**
+     * @param virtual use virtual threads for the fs and dns lanes, if the JDK supports them.
+     */
+    public BlockingPool(int size, int queueSize, Rejection rejection, boolean virtual) {
+        this.virtual = virtual && VirtualThreads.isAvailable();
+        for (BlockingLane lane : BlockingLane.values()) {
+            if (this.virtual && lane != BlockingLane.CPU) {
+                this.virtualLanes.put(lane, new VirtualLane(lane));
+                continue;
+            }
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size,
+                    60, TimeUnit.SECONDS,
+                    // bounded, but unlike an array queue takes no memory until used
+                    new LinkedBlockingQueue<Runnable>(queueSize),
+                    threadFactory(lane),
+                    rejectionHandler(rejection));
+            executor.allowCoreThreadTimeOut(true);
+            this.lanes.put(lane, executor);
+        }
+    }
+
+    private static ThreadFactory threadFactory(final BlockingLane lane) {
+        final AtomicInteger counter = new AtomicInteger();
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "blocking-" + lane.getName() + "-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        };
+    }
+
+    private static RejectedExecutionHandler rejectionHandler(Rejection rejection) {
+        if (rejection == Rejection.CALLER_RUNS) {
+            return new ThreadPoolExecutor.CallerRunsPolicy();
+        }
+        return new ThreadPoolExecutor.AbortPolicy();
+    }
+
+    /**
+     * @return whether some lanes run on virtual threads.
+     */
+    public boolean isVirtual() {
+        return this.virtual;
+    }
+
+    public void submit(BlockingLane lane, Runnable task) {
+        VirtualLane virtualLane = this.virtualLanes.get(lane);
+        if (virtualLane != null) {
+            virtualLane.submit(task);
+            return;
+        }
+        this.lanes.get(lane).execute(task);
+    }
+
+    public int getQueueDepth(BlockingLane lane) {
+        if (this.virtualLanes.containsKey(lane)) {
+            // every task gets a thread straight away
+            return 0;
+        }
+        return this.lanes.get(lane).getQueue().size();
+    }
+
+    public int getActiveCount(BlockingLane lane) {
+        VirtualLane virtualLane = this.virtualLanes.get(lane);
+        if (virtualLane != null) {
+            return virtualLane.active.get();
+        }
+        return this.lanes.get(lane).getActiveCount();
+    }
+
+    public long getCompletedTaskCount(BlockingLane lane) {
+        VirtualLane virtualLane = this.virtualLanes.get(lane);
+        if (virtualLane != null) {
+            return virtualLane.completed.get();
+        }
+        return this.lanes.get(lane).getCompletedTaskCount();
+    }
+
+    /**
+     * @return the most threads the lane will use, or -1 if unbounded.
+     */
+    public int getPoolSize(BlockingLane lane) {
+        if (this.virtualLanes.containsKey(lane)) {
+            return -1;
+        }
+        return this.lanes.get(lane).getMaximumPoolSize();
+    }
+
+    public void shutdown() {
+        for (ThreadPoolExecutor executor : this.lanes.values()) {
+            executor.shutdown();
+        }
+        for (VirtualLane lane : this.virtualLanes.values()) {
+            lane.executor.shutdown();
+        }
+    }
+
+    private static class VirtualLane {
+
+        private final ExecutorService executor;
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicLong completed = new AtomicLong();
+
+        VirtualLane(BlockingLane lane) {
+            this.executor = VirtualThreads.newThreadPerTaskExecutor("blocking-" + lane.getName() + "-");
+        }
+
+        void submit(final Runnable task) {
+            this.executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    VirtualLane.this.active.incrementAndGet();
+                    try {
+                        task.run();
+                    } finally {
+                        VirtualLane.this.active.decrementAndGet();
+                        VirtualLane.this.completed.incrementAndGet();
+                    }
+                }
+            });
+        }
+    }
+}
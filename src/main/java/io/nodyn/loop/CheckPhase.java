@@ -0,0 +1,97 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.loop;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the active check handles once per loop iteration, as libuv's
+ * check phase does.
+ *
+ * <p>A single task is queued behind whatever user tasks are already
+ * pending, so the callbacks of the current iteration run first. A handle
+ * stays active until stopped; if any are still active once the phase has
+ * run, the next iteration is queued, behind any I/O that arrived in the
+ * meantime. Handles started while the phase is running first run in the
+ * next iteration.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class CheckPhase implements Runnable {
+
+    private final Executor executor;
+    private final List<ImmediateCheckHandle> handles = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicLong iterations = new AtomicLong();
+
+    /**
+     * @param executor queues the phase behind the pending user tasks.
+     */
+    public CheckPhase(Executor executor) {
+        this.executor = executor;
+    }
+
+    public void start(ImmediateCheckHandle handle) {
+        if (!this.handles.contains(handle)) {
+            this.handles.add(handle);
+        }
+        schedule();
+    }
+
+    public void stop(ImmediateCheckHandle handle) {
+        this.handles.remove(handle);
+    }
+
+    public boolean isActive(ImmediateCheckHandle handle) {
+        return this.handles.contains(handle);
+    }
+
+    /**
+     * @return how many times the phase has run.
+     */
+    public long getIterations() {
+        return this.iterations.get();
+    }
+
+    private void schedule() {
+        if (this.scheduled.compareAndSet(false, true)) {
+            this.executor.execute(this);
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            // a snapshot, so handles started from a callback wait for the next iteration
+            for (ImmediateCheckHandle handle : this.handles) {
+                if (this.handles.contains(handle)) {
+                    handle.run();
+                }
+            }
+        } finally {
+            this.iterations.incrementAndGet();
+            this.scheduled.set(false);
+            if (!this.handles.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
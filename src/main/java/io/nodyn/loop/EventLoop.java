@@ -16,11 +16,20 @@
 
 package io.nodyn.loop;
 
+import io.netty.bootstrap.AbstractBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.util.concurrent.*;
 import io.nodyn.NodeProcess;
 
-import java.util.HashSet;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.*;
 import java.util.concurrent.Future;
@@ -28,20 +37,45 @@ import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * Runs script callbacks, one at a time, and tracks whether anything is
+ * still pending which should keep the process alive.
+ *
+ * <p>In {@link LoopMode#PINNED} mode, user tasks run on one of Netty's
+ * event loop threads, and that same loop is handed out for channels and
+ * timers, so I/O completions reach script without changing threads.</p>
+ *
  * @author Bob McWhirter
  */
 public class EventLoop implements RefCounted {
 
     private final ScheduledExecutorService userTaskExecutor;
+    // long-lived work, such as stream pumps, which must never queue
     private final ExecutorService blockingTaskExecutor;
+    private final BlockingPool blockingPool;
     private CountDownLatch latch = new CountDownLatch(1);
+    // set as soon as a shutdown starts, where the latch only counts down once it is done
+    private volatile boolean shuttingDown;
     private EventLoopGroup eventLoopGroup;
+    private final io.netty.channel.EventLoop pinnedLoop;
     private final boolean controlLifecycle;
     private final AtomicInteger taskCounter = new AtomicInteger();
+    private final CheckPhase checkPhase;
+    private volatile LoopPhase phase = LoopPhase.IDLE;
+    private final LoopStats stats = new LoopStats();
+    private volatile Thread userThread;
+
+    // for draining on shutdown; closed channels remove themselves
+    private final ChannelGroup servers = new DefaultChannelGroup("servers", GlobalEventExecutor.INSTANCE);
+    private final ChannelGroup channels = new DefaultChannelGroup("channels", GlobalEventExecutor.INSTANCE);
+    private final List<Runnable> sharedServers = new CopyOnWriteArrayList<>();
+    private final AtomicInteger blockingInFlight = new AtomicInteger();
+
+    // only kept when diagnosing what is keeping the loop alive
+    private static final boolean TRACK_HANDLES = Boolean.getBoolean("nodyn.loop.trackHandles");
 
-    private Set<RefHandle> handles = new HashSet<>();
+    private final Set<RefHandle> handles = TRACK_HANDLES ? Collections.newSetFromMap(new ConcurrentHashMap<RefHandle, Boolean>()) : null;
 
-    protected int counter;
+    private final AtomicInteger counter = new AtomicInteger();
     private NodeProcess process;
 
     public EventLoop(EventLoopGroup eventLoopGroup) {
@@ -49,8 +83,23 @@ public class EventLoop implements RefCounted {
     }
 
     public EventLoop(EventLoopGroup eventLoopGroup, boolean controlLifecycle) {
+        this(eventLoopGroup, controlLifecycle, LoopMode.EXECUTOR);
+    }
+
+    public EventLoop(EventLoopGroup eventLoopGroup, boolean controlLifecycle, LoopMode mode) {
+        this(eventLoopGroup, controlLifecycle, mode, new BlockingPool());
+    }
+
+    public EventLoop(EventLoopGroup eventLoopGroup, boolean controlLifecycle, LoopMode mode, BlockingPool blockingPool) {
         this.eventLoopGroup = eventLoopGroup;
         this.controlLifecycle = controlLifecycle;
+        this.blockingPool = blockingPool;
+        this.checkPhase = new CheckPhase(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                submitUserTask(command, "check", LoopPhase.CHECK);
+            }
+        });
 
         final CountDownLatch latch = new CountDownLatch(1);
 
@@ -68,37 +117,115 @@ public class EventLoop implements RefCounted {
             this.eventLoopGroup = null;
         }
 
-        this.userTaskExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
-            @Override
-            public Thread newThread(Runnable r) {
-                Thread t = new Thread(r, "user-tasks");
-                return t;
-            }
-        });
+        if (mode == LoopMode.PINNED && this.eventLoopGroup != null) {
+            this.pinnedLoop = this.eventLoopGroup.next();
+            this.userTaskExecutor = this.pinnedLoop;
+        } else {
+            this.pinnedLoop = null;
+            this.userTaskExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "user-tasks");
+                    return t;
+                }
+            });
+        }
 
-        this.blockingTaskExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
-            @Override
-            public Thread newThread(Runnable r) {
-                Thread t = new Thread(r, "blocking-task");
-                return t;
-            }
-        });
+        this.stats.setBlockingPool(blockingPool);
+        this.stats.register();
+
+        if (blockingPool.isVirtual()) {
+            this.blockingTaskExecutor = VirtualThreads.newThreadPerTaskExecutor("blocking-task-");
+        } else {
+            this.blockingTaskExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "blocking-task");
+                    return t;
+                }
+            });
+        }
     }
 
     public void setProcess(NodeProcess process) {
         this.process = process;
     }
 
+    /**
+     * @return the group to register channels and schedule timers with; in
+     *         pinned mode, the single loop script runs on.
+     */
     public EventLoopGroup getEventLoopGroup() {
+        if (this.pinnedLoop != null && this.eventLoopGroup != null) {
+            return this.pinnedLoop;
+        }
         return this.eventLoopGroup;
     }
 
+    public boolean isPinned() {
+        return this.pinnedLoop != null;
+    }
+
+    /**
+     * @return true when called on the loop script is pinned to, where
+     *         waiting for I/O would never finish.
+     */
+    public boolean inPinnedLoop() {
+        return this.pinnedLoop != null && this.pinnedLoop.inEventLoop();
+    }
+
+    /**
+     * Bind as <code>bootstrap</code> would. On the pinned loop, the channel
+     * is registered and bound inline, so the future is already done.
+     */
+    public ChannelFuture bind(AbstractBootstrap<?, ?> bootstrap, SocketAddress address) {
+        if (!inPinnedLoop()) {
+            return bootstrap.bind(address);
+        }
+        ChannelFuture registered = bootstrap.register();
+        if (registered.cause() != null) {
+            return registered;
+        }
+        return registered.channel().bind(address);
+    }
+
+    /**
+     * @return the phase currently running script, as seen from any thread.
+     */
+    public LoopPhase getPhase() {
+        return this.phase;
+    }
+
+    public LoopStats getStats() {
+        return this.stats;
+    }
+
+    public CheckPhase getCheckPhase() {
+        return this.checkPhase;
+    }
+
     public Future<?> submitUserTask(final Runnable task, String name) {
-        final RefHandle handle = newHandle("user-task#" + name );
+        return submitUserTask(task, name, LoopPhase.POLL);
+    }
+
+    /**
+     * Submit a user task which runs in <code>phase</code>, such as the
+     * callbacks of timers which expired in the timers phase.
+     */
+    public Future<?> submitUserTask(final Runnable task, final String name, final LoopPhase phase) {
+        // only named when there is a set of handles to list it in
+        final RefHandle handle = TRACK_HANDLES ? newHandle("user-task#" + name) : null;
+        if (handle == null) {
+            incrCount(null);
+        }
         this.taskCounter.incrementAndGet();
+        final long queuedAt = System.nanoTime();
         return this.userTaskExecutor.submit(new Runnable() {
             @Override
             public void run() {
+                EventLoop.this.userThread = Thread.currentThread();
+                EventLoop.this.phase = phase;
+                long startedAt = System.nanoTime();
                 try {
                     task.run();
                 } finally {
@@ -107,25 +234,93 @@ public class EventLoop implements RefCounted {
                     } catch (Throwable t) {
                         EventLoop.this.process.getNodyn().handleThrowable(t);
                     }
+                    EventLoop.this.phase = LoopPhase.IDLE;
+                    EventLoop.this.stats.record(name, queuedAt, startedAt, System.nanoTime());
+                }
+                if (handle != null) {
+                    handle.unref();
+                } else {
+                    decrCount(null);
                 }
-                handle.unref();
             }
         });
     }
 
     private void taskComplete() {
         int val = this.taskCounter.decrementAndGet();
-        if (val == 0) {
+        if (val == 0 && this.process != null) {
             this.process.doNextTick();
         }
     }
 
+    /**
+     * Schedule a timer callback; it runs in the timers phase.
+     */
     public ScheduledFuture<?> scheduleUserTask(final Runnable task, int time, TimeUnit units) {
-        return this.userTaskExecutor.schedule(task, time, units);
+        final long dueAt = System.nanoTime() + units.toNanos(time);
+        return this.userTaskExecutor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                EventLoop.this.phase = LoopPhase.TIMERS;
+                long startedAt = System.nanoTime();
+                try {
+                    task.run();
+                } finally {
+                    EventLoop.this.phase = LoopPhase.IDLE;
+                    EventLoop.this.stats.record("timer", dueAt, startedAt, System.nanoTime());
+                }
+            }
+        }, time, units);
     }
 
+    /**
+     * Run a task which may block for as long as it likes, on a thread of its own.
+     */
     public Future<?> submitBlockingTask(final Runnable task) {
-        return this.blockingTaskExecutor.submit(new Runnable() {
+        return this.blockingTaskExecutor.submit(guard(task));
+    }
+
+    /**
+     * Run a short blocking task on the bounded pool for <code>lane</code>.
+     *
+     * @throws RejectedExecutionException if the lane's queue is full and the pool rejects instead of running inline.
+     */
+    public void submitBlockingTask(BlockingLane lane, final Runnable task) {
+        this.blockingInFlight.incrementAndGet();
+        try {
+            this.blockingPool.submit(lane, guard(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.run();
+                    } finally {
+                        EventLoop.this.blockingInFlight.decrementAndGet();
+                    }
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            this.blockingInFlight.decrementAndGet();
+            throw e;
+        }
+    }
+
+    public BlockingPool getBlockingPool() {
+        return this.blockingPool;
+    }
+
+    /**
+     * Create, but do not start, a thread dedicated to a blocking pump; a
+     * virtual thread when the blocking pool uses them.
+     */
+    public Thread newBlockingThread(Runnable task, String name) {
+        if (this.blockingPool.isVirtual()) {
+            return VirtualThreads.threadFactory(name + "-").newThread(task);
+        }
+        return new Thread(task, name);
+    }
+
+    private Runnable guard(final Runnable task) {
+        return new Runnable() {
             @Override
             public void run() {
                 try {
@@ -134,11 +329,11 @@ public class EventLoop implements RefCounted {
                     EventLoop.this.process.getNodyn().handleThrowable(t);
                 }
             }
-        });
+        };
     }
 
     public int refCount() {
-        return this.counter;
+        return this.counter.get();
     }
 
     public RefHandle newHandle(String name) {
@@ -151,50 +346,183 @@ public class EventLoop implements RefCounted {
 
     public void dump() {
         System.err.println(" ---- ");
-        System.err.println(this.handles);
+        if (TRACK_HANDLES) {
+            System.err.println(this.handles);
+        } else {
+            System.err.println(this.counter.get() + " handles; run with -Dnodyn.loop.trackHandles=true to list them");
+        }
         System.err.println(" ---- ");
 
     }
 
-    public synchronized void incrCount(RefHandle handle) {
-        ++this.counter;
-        this.handles.add(handle);
+    public void incrCount(RefHandle handle) {
+        this.counter.incrementAndGet();
+        if (TRACK_HANDLES) {
+            this.handles.add(handle);
+        }
     }
 
-    public synchronized void decrCount(RefHandle handle) {
-        --this.counter;
-        this.handles.remove(handle);
-        if (this.counter == 0) {
+    public void decrCount(RefHandle handle) {
+        if (TRACK_HANDLES) {
+            this.handles.remove(handle);
+        }
+        if (this.counter.decrementAndGet() == 0) {
             doShutdown();
         }
     }
 
+    /**
+     * Track a listening channel, to stop accepting on a graceful shutdown.
+     */
+    public void trackServer(Channel channel) {
+        this.servers.add(channel);
+    }
+
+    /**
+     * Track a listening socket shared with other isolates. On a graceful
+     * shutdown <code>stopAccepting</code> is run instead of closing it, so
+     * the other isolates keep accepting.
+     */
+    public void trackServer(Runnable stopAccepting) {
+        this.sharedServers.add(stopAccepting);
+    }
+
+    /**
+     * Track a connected channel, to flush its pending writes on a graceful shutdown.
+     */
+    public void trackChannel(Channel channel) {
+        this.channels.add(channel);
+    }
+
     public void shutdown() {
         doShutdown();
     }
 
+    /**
+     * Shut down in stages, each waiting no later than <code>timeout</code>
+     * from now: stop accepting connections, let queued user tasks run,
+     * flush writes still buffered for each channel, and let in-flight
+     * blocking tasks (fs, crypto, zlib, dns) finish. Since each stage can
+     * queue work for the others, they are repeated until nothing is pending
+     * or the timeout has passed. Then shut down as {@link #shutdown()} does.
+     *
+     * <p>Called from the script thread, queued user tasks can not run
+     * and, in pinned mode, neither can writes; they are reported as
+     * pending rather than waited for.</p>
+     *
+     * @return what was still pending when the loop was shut down.
+     */
+    public ShutdownReport shutdownGracefully(long timeout, TimeUnit unit) {
+        if (this.shuttingDown) {
+            // already going down, e.g. through process.exit(), so nothing is left to drain
+            return new ShutdownReport(0, 0, 0);
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        boolean onLoop = Thread.currentThread() == this.userThread || (this.pinnedLoop != null && this.pinnedLoop.inEventLoop());
+
+        for (Runnable stopAccepting : this.sharedServers) {
+            stopAccepting.run();
+        }
+        this.servers.close().awaitUninterruptibly(remaining(deadline), TimeUnit.NANOSECONDS);
+
+        // a task calling us is itself still counted
+        int self = onLoop ? 1 : 0;
+        boolean writesCanComplete = !(onLoop && isPinned());
+
+        // each stage can feed the others: a blocking task finishing queues a
+        // user task, whose callback may write, so go round until nothing is left
+        int pendingTasks;
+        int pendingWrites;
+        int pendingBlocking;
+        do {
+            if (!onLoop) {
+                while (this.taskCounter.get() > 0 && remaining(deadline) > 0 && !Thread.currentThread().isInterrupted()) {
+                    pause();
+                }
+            }
+            pendingWrites = flushWrites(writesCanComplete, deadline);
+            while (this.blockingInFlight.get() > 0 && remaining(deadline) > 0 && !Thread.currentThread().isInterrupted()) {
+                pause();
+            }
+            pendingTasks = Math.max(0, this.taskCounter.get() - self);
+            pendingBlocking = this.blockingInFlight.get();
+        } while (((pendingTasks > 0 && !onLoop) || (pendingWrites > 0 && writesCanComplete) || pendingBlocking > 0)
+                && remaining(deadline) > 0 && !Thread.currentThread().isInterrupted());
+
+        ShutdownReport report = new ShutdownReport(pendingTasks, pendingWrites, pendingBlocking);
+        doShutdown();
+        return report;
+    }
+
+    /**
+     * @return the number of channels whose writes were not flushed.
+     */
+    private int flushWrites(boolean await, long deadline) {
+        // writes complete in order, so once an empty write is done everything before it is
+        List<ChannelFuture> flushes = new ArrayList<>();
+        for (Channel channel : this.channels) {
+            if (channel.isActive()) {
+                flushes.add(channel.writeAndFlush(Unpooled.EMPTY_BUFFER));
+            }
+        }
+        int pending = 0;
+        for (ChannelFuture flush : flushes) {
+            if (await) {
+                flush.awaitUninterruptibly(remaining(deadline), TimeUnit.NANOSECONDS);
+            }
+            if (!flush.isDone()) {
+                ++pending;
+            }
+        }
+        return pending;
+    }
+
+    private static long remaining(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     protected void doShutdown() {
+        this.shuttingDown = true;
         if (this.eventLoopGroup != null) {
             if (this.controlLifecycle) {
                 io.netty.util.concurrent.Future<?> future = this.eventLoopGroup.shutdownGracefully(0, 2, TimeUnit.SECONDS);
                 future.addListener(new FutureListener<Object>() {
                     @Override
                     public void operationComplete(io.netty.util.concurrent.Future<Object> future) throws Exception {
-                        EventLoop.this.userTaskExecutor.shutdown();
+                        shutdownUserTaskExecutor();
                         EventLoop.this.blockingTaskExecutor.shutdown();
+                        EventLoop.this.blockingPool.shutdown();
+                        EventLoop.this.stats.unregister();
                         EventLoop.this.latch.countDown();
                     }
                 });
                 this.eventLoopGroup = null;
             } else {
-                this.userTaskExecutor.shutdown();
+                shutdownUserTaskExecutor();
                 this.blockingTaskExecutor.shutdown();
+                this.blockingPool.shutdown();
+                this.stats.unregister();
                 this.latch.countDown();
             }
 
         }
     }
 
+    private void shutdownUserTaskExecutor() {
+        // a pinned loop belongs to the group, and goes down with it
+        if (this.pinnedLoop == null) {
+            this.userTaskExecutor.shutdown();
+        }
+    }
+
     public void await() throws InterruptedException {
         this.latch.await();
     }
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.loop;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations in power-of-two microsecond buckets.
+ *
+ * <p>Recording is a few atomic increments, cheap enough to do for every
+ * callback. Percentiles are reported as the upper bound of the bucket
+ * they fall in, so are accurate to within a factor of two.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class Histogram {
+
+    // bucket i holds durations below 2^i micros; the last is unbounded
+    static final int BUCKETS = 40;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        this.buckets.incrementAndGet(bucket(nanos));
+        this.count.incrementAndGet();
+        this.totalNanos.addAndGet(nanos);
+        long max;
+        while ((max = this.maxNanos.get()) < nanos) {
+            if (this.maxNanos.compareAndSet(max, nanos)) {
+                break;
+            }
+        }
+    }
+
+    static int bucket(long nanos) {
+        long micros = nanos / 1000;
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+
+    public long getCount() {
+        return this.count.get();
+    }
+
+    /**
+     * @return the mean, in milliseconds.
+     */
+    public double getMean() {
+        long count = this.count.get();
+        if (count == 0) {
+            return 0;
+        }
+        return millis(this.totalNanos.get()) / count;
+    }
+
+    /**
+     * @return the longest duration recorded, in milliseconds.
+     */
+    public double getMax() {
+        return millis(this.maxNanos.get());
+    }
+
+    /**
+     * @param percentile between 0 and 100.
+     * @return the duration, in milliseconds, which <code>percentile</code>
+     *         percent of recordings were under.
+     */
+    public double getPercentile(double percentile) {
+        long count = this.count.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * (percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS - 1; ++i) {
+            seen += this.buckets.get(i);
+            if (seen >= rank) {
+                return Math.min((1L << i) / 1000.0, getMax());
+            }
+        }
+        return getMax();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; ++i) {
+            this.buckets.set(i, 0);
+        }
+        this.count.set(0);
+        this.totalNanos.set(0);
+        this.maxNanos.set(0);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1000000.0;
+    }
+}
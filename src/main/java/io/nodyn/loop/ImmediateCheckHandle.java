@@ -16,41 +16,39 @@
 
 package io.nodyn.loop;
 
-import io.netty.channel.EventLoopGroup;
-
-import java.util.concurrent.Future;
-
 /**
+ * A check handle, which runs its callback in the check phase of every
+ * loop iteration while it is active.
+ *
  * @author Bob McWhirter
  */
 public class ImmediateCheckHandle implements Runnable {
 
 
     private final EventLoop loop;
+    private final CheckPhase phase;
     private final Runnable callback;
-    private Future<?> future;
 
     public ImmediateCheckHandle(EventLoop loop, Runnable callback) {
+        this(loop, loop.getCheckPhase(), callback);
+    }
+
+    ImmediateCheckHandle(EventLoop loop, CheckPhase phase, Runnable callback) {
         this.loop = loop;
+        this.phase = phase;
         this.callback = callback;
     }
 
     public boolean isActive() {
-        return this.future != null;
+        return this.phase.isActive(this);
     }
 
     public void start() {
-        if ( this.future != null ) {
-            return;
-        }
-        this.future = this.loop.submitUserTask(this, "immediate-check");
+        this.phase.start(this);
     }
 
     public void stop() {
-        if ( this.future != null ) {
-            this.future.cancel( true );
-            this.future = null;
-        }
+        this.phase.stop(this);
     }
 
     @Override
@@ -59,8 +57,6 @@ public class ImmediateCheckHandle implements Runnable {
             this.callback.run();
         } catch (Throwable t){
             this.loop.getProcess().getNodyn().handleThrowable(t);
-        } finally {
-            this.future = null;
         }
     }
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.loop;
+
+/**
+ * Where script callbacks run relative to Netty's I/O threads.
+ *
+ * @author Bob McWhirter
+ */
+public enum LoopMode {
+
+    /** Script runs on its own thread; I/O is handed to it from Netty's threads. */
+    EXECUTOR("executor"),
+
+    /** Script and all of its I/O run on a single Netty event loop thread. */
+    PINNED("pinned");
+
+    private final String name;
+
+    LoopMode(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public static LoopMode forName(String name) {
+        for (LoopMode each : values()) {
+            if (each.name.equals(name)) {
+                return each;
+            }
+        }
+        throw new IllegalArgumentException("unknown loop mode: " + name);
+    }
+}
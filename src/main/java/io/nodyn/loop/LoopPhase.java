@@ -0,0 +1,38 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.loop;
+
+/**
+ * The phase of a loop iteration which is currently running script, in
+ * the order they occur within an iteration.
+ *
+ * @author Bob McWhirter
+ */
+public enum LoopPhase {
+
+    /** No script is running. */
+    IDLE,
+
+    /** Expired timers are firing. */
+    TIMERS,
+
+    /** I/O callbacks and other user tasks are running. */
+    POLL,
+
+    /** Check handles, and so setImmediate callbacks, are running. */
+    CHECK
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.loop;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how long user tasks wait to run, how long they run for, and
+ * so what fraction of the time the loop thread is busy.
+ *
+ * <p>Run times are kept per task name, as passed to
+ * {@link EventLoop#submitUserTask(Runnable, String)}, with timers under
+ * "timer", and per dispatched callback, by wrap class and event name
+ * such as "TCPWrap#connection". The queue depth and activity of each
+ * blocking lane are reported from its {@link BlockingPool}. Available from script through
+ * <code>process.binding('loop_stats')</code>, and over JMX as
+ * <code>io.nodyn:type=EventLoop</code>.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class LoopStats implements LoopStatsMBean {
+
+    private final Histogram queueDelay = new Histogram();
+    private final ConcurrentHashMap<String, Histogram> runTimes = new ConcurrentHashMap<>();
+    private final AtomicLong busyNanos = new AtomicLong();
+    private volatile long since = System.nanoTime();
+
+    private ObjectName objectName;
+    private volatile BlockingPool blockingPool;
+
+    /**
+     * @param queuedAt when the task was submitted or, for timers, due.
+     */
+    public void record(String name, long queuedAt, long startedAt, long endedAt) {
+        this.queueDelay.record(startedAt - queuedAt);
+        runTime(name).record(endedAt - startedAt);
+        this.busyNanos.addAndGet(endedAt - startedAt);
+    }
+
+    /**
+     * Record a callback run as part of a task that is itself recorded, such
+     * as one of the events delivered by a dispatch batch. Only its run time
+     * is kept; its queue delay and busy time are the task's.
+     */
+    public void recordCallback(String name, long startedAt, long endedAt) {
+        runTime(name).record(endedAt - startedAt);
+    }
+
+    private Histogram runTime(String name) {
+        Histogram histogram = this.runTimes.get(name);
+        if (histogram == null) {
+            histogram = new Histogram();
+            Histogram existing = this.runTimes.putIfAbsent(name, histogram);
+            if (existing != null) {
+                histogram = existing;
+            }
+        }
+        return histogram;
+    }
+
+    public Histogram getQueueDelay() {
+        return this.queueDelay;
+    }
+
+    /**
+     * @return the run times of tasks named <code>name</code>, or null if none have run.
+     */
+    public Histogram getRunTime(String name) {
+        return this.runTimes.get(name);
+    }
+
+    /**
+     * @return the time spent running tasks, in milliseconds, since the last reset.
+     */
+    public double getBusyTime() {
+        return this.busyNanos.get() / 1000000.0;
+    }
+
+    /**
+     * @return the time since the last reset, in milliseconds.
+     */
+    public double getElapsedTime() {
+        return (System.nanoTime() - this.since) / 1000000.0;
+    }
+
+    @Override
+    public double getUtilization() {
+        double elapsed = getElapsedTime();
+        if (elapsed <= 0) {
+            return 0;
+        }
+        return Math.min(1.0, getBusyTime() / elapsed);
+    }
+
+    @Override
+    public long getTaskCount() {
+        return this.queueDelay.getCount();
+    }
+
+    @Override
+    public double getQueueDelayMean() {
+        return this.queueDelay.getMean();
+    }
+
+    @Override
+    public double getQueueDelayP50() {
+        return this.queueDelay.getPercentile(50);
+    }
+
+    @Override
+    public double getQueueDelayP99() {
+        return this.queueDelay.getPercentile(99);
+    }
+
+    @Override
+    public double getQueueDelayMax() {
+        return this.queueDelay.getMax();
+    }
+
+    @Override
+    public String[] getTaskNames() {
+        return this.runTimes.keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public double runTimePercentile(String name, double percentile) {
+        Histogram histogram = this.runTimes.get(name);
+        return histogram == null ? 0 : histogram.getPercentile(percentile);
+    }
+
+    @Override
+    public double runTimeMax(String name) {
+        Histogram histogram = this.runTimes.get(name);
+        return histogram == null ? 0 : histogram.getMax();
+    }
+
+    @Override
+    public String[] getBlockingLanes() {
+        BlockingLane[] lanes = BlockingLane.values();
+        String[] names = new String[lanes.length];
+        for (int i = 0; i < lanes.length; ++i) {
+            names[i] = lanes[i].getName();
+        }
+        return names;
+    }
+
+    /**
+     * @return the tasks waiting for a thread of <code>lane</code>.
+     */
+    @Override
+    public int blockingQueueDepth(String lane) {
+        BlockingPool pool = this.blockingPool;
+        return pool == null ? 0 : pool.getQueueDepth(BlockingLane.forName(lane));
+    }
+
+    @Override
+    public int blockingActiveCount(String lane) {
+        BlockingPool pool = this.blockingPool;
+        return pool == null ? 0 : pool.getActiveCount(BlockingLane.forName(lane));
+    }
+
+    @Override
+    public long blockingCompletedTaskCount(String lane) {
+        BlockingPool pool = this.blockingPool;
+        return pool == null ? 0 : pool.getCompletedTaskCount(BlockingLane.forName(lane));
+    }
+
+    /**
+     * @return the most threads <code>lane</code> will use, or -1 if unbounded.
+     */
+    public int blockingPoolSize(String lane) {
+        BlockingPool pool = this.blockingPool;
+        return pool == null ? 0 : pool.getPoolSize(BlockingLane.forName(lane));
+    }
+
+    void setBlockingPool(BlockingPool blockingPool) {
+        this.blockingPool = blockingPool;
+    }
+
+    @Override
+    public void reset() {
+        this.queueDelay.reset();
+        this.runTimes.clear();
+        this.busyNanos.set(0);
+        this.since = System.nanoTime();
+    }
+
+    void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("io.nodyn:type=EventLoop,id=" + Integer.toHexString(System.identityHashCode(this)));
+            server.registerMBean(this, name);
+            this.objectName = name;
+        } catch (Exception e) {
+            // instrumentation is still available from script
+        }
+    }
+
+    void unregister() {
+        if (this.objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.objectName);
+        } catch (Exception e) {
+            // already gone
+        }
+        this.objectName = null;
+    }
+}
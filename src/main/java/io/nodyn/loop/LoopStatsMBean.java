@@ -0,0 +1,53 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.loop;
+
+/**
+ * The JMX view of {@link LoopStats}. Durations are in milliseconds.
+ *
+ * @author Bob McWhirter
+ */
+public interface LoopStatsMBean {
+
+    double getUtilization();
+
+    long getTaskCount();
+
+    double getQueueDelayMean();
+
+    double getQueueDelayP50();
+
+    double getQueueDelayP99();
+
+    double getQueueDelayMax();
+
+    String[] getTaskNames();
+
+    double runTimePercentile(String name, double percentile);
+
+    double runTimeMax(String name);
+
+    String[] getBlockingLanes();
+
+    int blockingQueueDepth(String lane);
+
+    int blockingActiveCount(String lane);
+
+    long blockingCompletedTaskCount(String lane);
+
+    void reset();
+}
@@ -16,14 +16,18 @@
 
 package io.nodyn.loop;
 
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
 /**
  * @author Bob McWhirter
  */
 public class RefHandle {
 
+    private static final AtomicIntegerFieldUpdater<RefHandle> COUNTED = AtomicIntegerFieldUpdater.newUpdater(RefHandle.class, "counted");
+
     private final RefCounted refCounted;
     private final String name;
-    private boolean counted;
+    private volatile int counted;
 
     public RefHandle(RefCounted refCounted, String name) {
         this( refCounted, true, name );
@@ -45,24 +49,16 @@ public class RefHandle {
         return new RefHandleHandler( this );
     }
 
-    public synchronized void ref() {
-        if ( this.counted ) {
-            return;
+    public void ref() {
+        if ( COUNTED.compareAndSet( this, 0, 1 ) ) {
+            this.refCounted.incrCount( this );
         }
-
-        this.counted = true;
-
-        this.refCounted.incrCount( this );
     }
 
-    public synchronized void unref() {
-        if ( ! this.counted ) {
-            return;
+    public void unref() {
+        if ( COUNTED.compareAndSet( this, 1, 0 ) ) {
+            this.refCounted.decrCount( this );
         }
-
-        this.counted = false;
-
-        this.refCounted.decrCount( this );
     }
 
     public String toString() {
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.loop;
+
+/**
+ * What was still pending when an {@link EventLoop} was shut down
+ * gracefully.
+ *
+ * @author Bob McWhirter
+ */
+public class ShutdownReport {
+
+    private final int pendingUserTasks;
+    private final int pendingWrites;
+    private final int pendingBlockingTasks;
+
+    public ShutdownReport(int pendingUserTasks, int pendingWrites, int pendingBlockingTasks) {
+        this.pendingUserTasks = pendingUserTasks;
+        this.pendingWrites = pendingWrites;
+        this.pendingBlockingTasks = pendingBlockingTasks;
+    }
+
+    public int getPendingUserTasks() {
+        return this.pendingUserTasks;
+    }
+
+    /**
+     * @return the number of channels whose buffered writes were not flushed.
+     */
+    public int getPendingWrites() {
+        return this.pendingWrites;
+    }
+
+    public int getPendingBlockingTasks() {
+        return this.pendingBlockingTasks;
+    }
+
+    /**
+     * @return whether everything was drained.
+     */
+    public boolean isClean() {
+        return this.pendingUserTasks == 0 && this.pendingWrites == 0 && this.pendingBlockingTasks == 0;
+    }
+
+    public String toString() {
+        return "[ShutdownReport: pendingUserTasks=" + this.pendingUserTasks + "; pendingWrites=" + this.pendingWrites + "; pendingBlockingTasks=" + this.pendingBlockingTasks + "]";
+    }
+}
@@ -57,7 +57,7 @@ public class DuplexIPCChannel extends EmbeddedChannel {
 
     protected void startPumps() {
 
-        this.inPump = new Thread(new Runnable() {
+        this.inPump = this.process.getEventLoop().newBlockingThread(new Runnable() {
             @Override
             public void run() {
                 try {
@@ -66,12 +66,12 @@ public class DuplexIPCChannel extends EmbeddedChannel {
                     DuplexIPCChannel.this.process.getNodyn().handleThrowable(t);
                 }
             }
-        });
+        }, "ipc-in");
 
         this.inPump.setDaemon(true);
         this.inPump.start();
 
-        this.outPump = new Thread(new Runnable() {
+        this.outPump = this.process.getEventLoop().newBlockingThread(new Runnable() {
             @Override
             public void run() {
                 try {
@@ -80,7 +80,7 @@ public class DuplexIPCChannel extends EmbeddedChannel {
                     DuplexIPCChannel.this.process.getNodyn().handleThrowable(t);
                 }
             }
-        });
+        }, "ipc-out");
 
         this.outPump.setDaemon(true);
         this.outPump.start();
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.runtime;
+
+import io.nodyn.ExitHandler;
+import io.nodyn.Nodyn;
+import io.nodyn.loop.ShutdownReport;
+import io.nodyn.tcp.SharedServers;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.VertxFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs several copies of a program in one JVM, each an independent
+ * runtime with its own loop and globals, all sharing one Vert.x instance.
+ *
+ * <p>Servers listening on the same address and port share one socket,
+ * with connections spread across the isolates, so a server uses every
+ * core without forking a JVM per core.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class IsolateGroup {
+
+    private final RuntimeFactory factory;
+    private final NodynConfig config;
+    private final int size;
+    private final List<Isolate> isolates = new CopyOnWriteArrayList<>();
+
+    public IsolateGroup(RuntimeFactory factory, NodynConfig config, int size) {
+        this.factory = factory;
+        this.config = config;
+        this.size = size;
+    }
+
+    /**
+     * Run every isolate to completion.
+     *
+     * @return the first non-zero exit code of an isolate, or 0.
+     */
+    public int run() throws Throwable {
+        Vertx vertx = VertxFactory.newVertx();
+        SharedServers sharedServers = new SharedServers();
+
+        List<Isolate> isolates = this.isolates;
+        for (int i = 0; i < this.size; ++i) {
+            Nodyn nodyn = this.factory.newRuntime(vertx, this.config, false);
+            nodyn.setSharedServers(sharedServers);
+            nodyn.setIsolateId(i);
+            isolates.add(new Isolate(nodyn));
+        }
+
+        for (Isolate isolate : isolates) {
+            isolate.start();
+        }
+
+        int exitCode = 0;
+        Throwable error = null;
+        try {
+            for (Isolate isolate : isolates) {
+                isolate.join();
+                if (error == null) {
+                    error = isolate.error;
+                }
+                if (exitCode == 0) {
+                    exitCode = isolate.exitCode;
+                }
+            }
+        } finally {
+            vertx.stop();
+        }
+
+        if (error != null) {
+            throw error;
+        }
+        return exitCode;
+    }
+
+    /**
+     * Shut every isolate down gracefully, all at once so none keeps
+     * accepting while another drains.
+     *
+     * @return what was still pending, summed over the isolates.
+     */
+    public ShutdownReport shutdownGracefully(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final List<ShutdownReport> reports = new CopyOnWriteArrayList<>();
+        List<Thread> drains = new ArrayList<>();
+        for (final Isolate isolate : this.isolates) {
+            Thread drain = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    reports.add(isolate.nodyn.getEventLoop().shutdownGracefully(timeout, unit));
+                }
+            }, "drain-" + isolate.nodyn.getIsolateId());
+            drain.start();
+            drains.add(drain);
+        }
+        for (Thread drain : drains) {
+            drain.join();
+        }
+
+        int pendingUserTasks = 0;
+        int pendingWrites = 0;
+        int pendingBlockingTasks = 0;
+        for (ShutdownReport report : reports) {
+            pendingUserTasks += report.getPendingUserTasks();
+            pendingWrites += report.getPendingWrites();
+            pendingBlockingTasks += report.getPendingBlockingTasks();
+        }
+        return new ShutdownReport(pendingUserTasks, pendingWrites, pendingBlockingTasks);
+    }
+
+    private static class Isolate extends Thread implements ExitHandler {
+
+        private final Nodyn nodyn;
+        private volatile int exitCode;
+        private volatile Throwable error;
+
+        Isolate(Nodyn nodyn) {
+            super("isolate-" + nodyn.getIsolateId());
+            this.nodyn = nodyn;
+            // process.exit() ends this isolate, not the JVM
+            nodyn.setExitHandler(this);
+        }
+
+        @Override
+        public void reallyExit(int exitCode) {
+            this.exitCode = exitCode;
+        }
+
+        @Override
+        public void run() {
+            try {
+                int exitCode = this.nodyn.run();
+                if (this.exitCode == 0) {
+                    this.exitCode = exitCode;
+                }
+            } catch (Throwable t) {
+                this.error = t;
+            }
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package io.nodyn.runtime;
 
+import io.nodyn.loop.BlockingPool;
+import io.nodyn.loop.LoopMode;
+import io.nodyn.smalloc.AllocatorType;
+
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -26,6 +30,17 @@ public class NodynConfig {
     private int debugPort = 5858;
     private boolean debugWaitConnect;
 
+    private AllocatorType bufferAllocator = AllocatorType.UNPOOLED;
+    private int decodeCacheSize;
+    private long maxExternalMemory;
+    private LoopMode loopMode = LoopMode.EXECUTOR;
+    private int threadpoolSize = defaultThreadpoolSize();
+    private int threadpoolQueueSize = BlockingPool.DEFAULT_QUEUE_SIZE;
+    private BlockingPool.Rejection threadpoolRejection = BlockingPool.Rejection.ABORT;
+    private boolean virtualThreads;
+    private int isolates = 1;
+    private long drainTimeout;
+
     private boolean noMoreArgs;
 
     public NodynConfig() {
@@ -98,6 +113,103 @@ public class NodynConfig {
         return this.evalString;
     }
 
+    public AllocatorType getBufferAllocator() {
+        return this.bufferAllocator;
+    }
+
+    public void setBufferAllocator(AllocatorType bufferAllocator) {
+        this.bufferAllocator = bufferAllocator;
+    }
+
+    public int getDecodeCacheSize() {
+        return this.decodeCacheSize;
+    }
+
+    public void setDecodeCacheSize(int decodeCacheSize) {
+        this.decodeCacheSize = decodeCacheSize;
+    }
+
+    public long getMaxExternalMemory() {
+        return this.maxExternalMemory;
+    }
+
+    public void setMaxExternalMemory(long maxExternalMemory) {
+        this.maxExternalMemory = maxExternalMemory;
+    }
+
+    public LoopMode getLoopMode() {
+        return this.loopMode;
+    }
+
+    public void setLoopMode(LoopMode loopMode) {
+        this.loopMode = loopMode;
+    }
+
+    public int getThreadpoolSize() {
+        return this.threadpoolSize;
+    }
+
+    public void setThreadpoolSize(int threadpoolSize) {
+        this.threadpoolSize = threadpoolSize;
+    }
+
+    public int getThreadpoolQueueSize() {
+        return this.threadpoolQueueSize;
+    }
+
+    public void setThreadpoolQueueSize(int threadpoolQueueSize) {
+        this.threadpoolQueueSize = threadpoolQueueSize;
+    }
+
+    public BlockingPool.Rejection getThreadpoolRejection() {
+        return this.threadpoolRejection;
+    }
+
+    public void setThreadpoolRejection(BlockingPool.Rejection threadpoolRejection) {
+        this.threadpoolRejection = threadpoolRejection;
+    }
+
+    public boolean isVirtualThreads() {
+        return this.virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public int getIsolates() {
+        return this.isolates;
+    }
+
+    public void setIsolates(int isolates) {
+        this.isolates = isolates;
+    }
+
+    public long getDrainTimeout() {
+        return this.drainTimeout;
+    }
+
+    public void setDrainTimeout(long drainTimeout) {
+        this.drainTimeout = drainTimeout;
+    }
+
+    public BlockingPool newBlockingPool() {
+        return new BlockingPool( this.threadpoolSize, this.threadpoolQueueSize, this.threadpoolRejection, this.virtualThreads );
+    }
+
+    private static int defaultThreadpoolSize() {
+        // same variable, and same default, as libuv
+        String size = System.getenv( "UV_THREADPOOL_SIZE" );
+        if ( size != null ) {
+            try {
+                return Math.max( 1, Integer.parseInt( size.trim() ) );
+            } catch (NumberFormatException e) {
+                // fall through to the default
+            }
+        }
+        return BlockingPool.DEFAULT_SIZE;
+    }
+
     protected void parse(String[] rawArgv) {
 
         int i = 0;
@@ -121,6 +233,51 @@ public class NodynConfig {
             return result;
         }
 
+        if ( arg.startsWith( "--buffer-allocator=" ) ) {
+            this.bufferAllocator = AllocatorType.forName( arg.substring( "--buffer-allocator=".length() ) );
+            return pos+1;
+        }
+
+        if ( arg.startsWith( "--decode-cache=" ) ) {
+            this.decodeCacheSize = Integer.parseInt( arg.substring( "--decode-cache=".length() ) );
+            return pos+1;
+        }
+
+        if ( arg.startsWith( "--max-external-memory=" ) ) {
+            this.maxExternalMemory = parseSize( arg.substring( "--max-external-memory=".length() ) );
+            return pos+1;
+        }
+
+        if ( arg.startsWith( "--loop-mode=" ) ) {
+            this.loopMode = LoopMode.forName( arg.substring( "--loop-mode=".length() ) );
+            return pos+1;
+        }
+
+        if ( arg.startsWith( "--drain-timeout=" ) ) {
+            this.drainTimeout = Long.parseLong( arg.substring( "--drain-timeout=".length() ) );
+            return pos+1;
+        }
+
+        if ( arg.startsWith( "--isolates=" ) ) {
+            this.isolates = Math.max( 1, Integer.parseInt( arg.substring( "--isolates=".length() ) ) );
+            return pos+1;
+        }
+
+        if ( arg.startsWith( "--threadpool-size=" ) ) {
+            this.threadpoolSize = Integer.parseInt( arg.substring( "--threadpool-size=".length() ) );
+            return pos+1;
+        }
+
+        if ( arg.startsWith( "--threadpool-queue=" ) ) {
+            this.threadpoolQueueSize = Integer.parseInt( arg.substring( "--threadpool-queue=".length() ) );
+            return pos+1;
+        }
+
+        if ( arg.startsWith( "--threadpool-reject=" ) ) {
+            this.threadpoolRejection = BlockingPool.Rejection.forName( arg.substring( "--threadpool-reject=".length() ) );
+            return pos+1;
+        }
+
         switch ( arg ) {
             case "-v":
             case "--version":
@@ -146,6 +303,9 @@ public class NodynConfig {
             case "--no-deprecation":
                 this.noDeprecation = true;
                 return pos+1;
+            case "--virtual-threads":
+                this.virtualThreads = true;
+                return pos+1;
             case "--trace-deprecation":
                 this.traceDeprecation = true;
                 return pos+1;
@@ -207,6 +367,28 @@ public class NodynConfig {
         return pos;
     }
 
+    /**
+     * Parse a number of bytes, optionally suffixed with k, m or g.
+     */
+    protected long parseSize(String size) {
+        long unit = 1;
+        switch ( Character.toLowerCase( size.charAt( size.length() - 1 ) ) ) {
+            case 'k':
+                unit = 1024L;
+                break;
+            case 'm':
+                unit = 1024L * 1024;
+                break;
+            case 'g':
+                unit = 1024L * 1024 * 1024;
+                break;
+        }
+        if ( unit > 1 ) {
+            size = size.substring( 0, size.length() - 1 );
+        }
+        return Long.parseLong( size ) * unit;
+    }
+
     protected String next(String[] rawArgv, int pos) {
         if ( ( pos + 1 )  >=  rawArgv.length ) {
             throw new IllegalArgumentException( rawArgv[pos] + " requires an argument" );
@@ -39,4 +39,9 @@ public class NashornFactory extends RuntimeFactory {
         return new NashornRuntime(config, vertx, true);
     }
 
+    @Override
+    public Nodyn newRuntime(Vertx vertx, NodynConfig config, boolean controlLifeCycle) {
+        return new NashornRuntime(config, vertx, controlLifeCycle);
+    }
+
 }
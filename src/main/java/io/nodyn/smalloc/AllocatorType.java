@@ -0,0 +1,48 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.smalloc;
+
+/**
+ * Strategies available for allocating the memory behind a Buffer.
+ *
+ * @author Bob McWhirter
+ */
+public enum AllocatorType {
+
+    POOLED_DIRECT("pooled-direct"),
+    POOLED_HEAP("pooled-heap"),
+    UNPOOLED("unpooled");
+
+    private final String name;
+
+    AllocatorType(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public static AllocatorType forName(String name) {
+        for (AllocatorType each : values()) {
+            if (each.name.equals(name)) {
+                return each;
+            }
+        }
+        throw new IllegalArgumentException("unknown buffer allocator: " + name);
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.smalloc;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Allocates the memory behind Buffers and releases it once the owning
+ * JavaScript object has been collected.
+ *
+ * <p>The pooled variants carve small buffers out of 8KB pages, the same
+ * size as the pool node uses for small buffers. Pooled memory is recycled
+ * and so, as with node, a freshly allocated buffer is not zero-filled.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class BufferAllocator {
+
+    public static final int PAGE_SIZE = 8192;
+
+    // 8KB << 11 = 16MB chunks
+    private static final int MAX_ORDER = 11;
+
+    // a full collection stalls the loop, so only when asked for
+    private static final boolean COLLECT_ON_LIMIT = Boolean.getBoolean("nodyn.smalloc.collectOnLimit");
+
+    private final AllocatorType type;
+    private final ByteBufAllocator allocator;
+    private final ExternalMemory memory;
+
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+    private final Set<Release> releases = Collections.newSetFromMap(new ConcurrentHashMap<Release, Boolean>());
+
+    private boolean collectOnLimit = COLLECT_ON_LIMIT;
+
+    public BufferAllocator(AllocatorType type) {
+        this(type, 0);
+    }
+
+    /**
+     * @param limit the most bytes of external memory script may allocate, or 0 for no limit.
+     */
+    public BufferAllocator(AllocatorType type, long limit) {
+        this.type = type;
+        this.memory = new ExternalMemory(limit);
+        switch (type) {
+            case POOLED_DIRECT:
+                // all script allocations happen on the single user-task thread
+                this.allocator = new PooledByteBufAllocator(true, 0, 1, PAGE_SIZE, MAX_ORDER);
+                break;
+            case POOLED_HEAP:
+                this.allocator = new PooledByteBufAllocator(false, 1, 0, PAGE_SIZE, MAX_ORDER);
+                break;
+            default:
+                this.allocator = UnpooledByteBufAllocator.DEFAULT;
+        }
+    }
+
+    public AllocatorType getType() {
+        return this.type;
+    }
+
+    public boolean isPooled() {
+        return this.type != AllocatorType.UNPOOLED;
+    }
+
+    /**
+     * @return the external memory in use, once collected owners have been reaped.
+     */
+    public ExternalMemory getExternalMemory() {
+        reap();
+        return this.memory;
+    }
+
+    /**
+     * @return a buffer to be passed to {@link #track(Object, ByteBuf)}, or
+     *         null if it would take external memory over the limit even
+     *         once unreachable owners have been collected.
+     */
+    public ByteBuf allocate(int size) {
+        reap();
+        if (!reserve(size)) {
+            return null;
+        }
+        return buffer(size);
+    }
+
+    private boolean reserve(int size) {
+        if (this.memory.reserve(ExternalMemory.Source.SMALLOC, size)) {
+            return true;
+        }
+
+        // owners collected since may hold what we need; never wait for more on the loop
+        if (this.collectOnLimit) {
+            System.gc();
+        }
+        reap();
+        return this.memory.reserve(ExternalMemory.Source.SMALLOC, size);
+    }
+
+    /**
+     * Run a full collection before failing an allocation over the limit, as
+     * with <code>-Dnodyn.smalloc.collectOnLimit=true</code>.
+     */
+    void setCollectOnLimit(boolean collectOnLimit) {
+        this.collectOnLimit = collectOnLimit;
+    }
+
+    /**
+     * @return a buffer which is not held to the limit, to be counted with
+     *         {@link #account(Object, ByteBuf, ExternalMemory.Source)} and
+     *         given back with {@link #releaseWith(Object, ByteBuf)}.
+     */
+    public ByteBuf buffer(int size) {
+        if (this.type == AllocatorType.POOLED_DIRECT) {
+            return this.allocator.directBuffer(size);
+        }
+        return this.allocator.heapBuffer(size);
+    }
+
+    public CompositeByteBuf compositeBuffer(int maxComponents) {
+        // never consolidate components into a copy
+        return this.allocator.compositeBuffer(Math.max(2, maxComponents));
+    }
+
+    /**
+     * Take ownership of <code>buf</code>, returned by {@link #allocate(int)},
+     * releasing it once <code>owner</code> is no longer reachable.
+     */
+    public void track(Object owner, ByteBuf buf) {
+        // unpooled heap memory is reclaimed by the collector along with the owner
+        register(owner, isPooled() ? buf : null, ExternalMemory.Source.SMALLOC, buf.capacity());
+    }
+
+    /**
+     * Retain <code>buf</code> on behalf of <code>owner</code>, releasing it
+     * once <code>owner</code> is no longer reachable.
+     */
+    public void retain(Object owner, ByteBuf buf) {
+        if (!isPooled()) {
+            return;
+        }
+        register(owner, buf.retain(), ExternalMemory.Source.SMALLOC, 0);
+    }
+
+    /**
+     * Release <code>buf</code>, already retained by the caller, once
+     * <code>owner</code> is no longer reachable.
+     */
+    public void releaseWith(Object owner, ByteBuf buf) {
+        if (!isPooled()) {
+            return;
+        }
+        register(owner, buf, ExternalMemory.Source.SMALLOC, 0);
+    }
+
+    /**
+     * Count <code>buf</code>, allocated elsewhere, against <code>source</code>
+     * for as long as <code>owner</code> is reachable.
+     */
+    public void account(Object owner, ByteBuf buf, ExternalMemory.Source source) {
+        this.memory.add(source, buf.capacity());
+        register(owner, null, source, buf.capacity());
+    }
+
+    public void account(Object owner, ByteBuf buf, String source) {
+        account(owner, buf, ExternalMemory.Source.forName(source));
+    }
+
+    private void register(Object owner, ByteBuf buf, ExternalMemory.Source source, long bytes) {
+        // slicing and received bodies never allocate, so reap here rather than only in allocate()
+        reap();
+        this.releases.add(new Release(owner, buf, source, bytes, this.queue));
+    }
+
+    public int reap() {
+        int count = 0;
+        Reference<?> ref;
+        while ((ref = this.queue.poll()) != null) {
+            release(ref);
+            ++count;
+        }
+        return count;
+    }
+
+    private void release(Reference<?> ref) {
+        Release release = (Release) ref;
+        this.releases.remove(release);
+        release.release(this.memory);
+    }
+
+    public int trackedCount() {
+        return this.releases.size();
+    }
+
+    private static class Release extends PhantomReference<Object> {
+
+        private ByteBuf buf;
+        private final ExternalMemory.Source source;
+        private final long bytes;
+
+        Release(Object owner, ByteBuf buf, ExternalMemory.Source source, long bytes, ReferenceQueue<Object> queue) {
+            super(owner, queue);
+            this.buf = buf;
+            this.source = source;
+            this.bytes = bytes;
+        }
+
+        void release(ExternalMemory memory) {
+            if (this.buf != null && this.buf.refCnt() > 0) {
+                this.buf.release();
+            }
+            this.buf = null;
+            memory.release(this.source, this.bytes);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.smalloc;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Live bytes held by Buffers outside of the script heap, by where the
+ * memory came from.
+ *
+ * <p>Only allocations made on behalf of script are subject to the limit.
+ * Memory handed to script by the network or by crypto has already been
+ * allocated, and is only counted.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class ExternalMemory {
+
+    public enum Source {
+
+        SMALLOC("smalloc"),
+        SOCKET("socket"),
+        CRYPTO("crypto"),
+        OTHER("other");
+
+        private final String name;
+
+        Source(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public static Source forName(String name) {
+            for (Source each : values()) {
+                if (each.name.equals(name)) {
+                    return each;
+                }
+            }
+            return OTHER;
+        }
+    }
+
+    private final long limit;
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLongArray bySource = new AtomicLongArray(Source.values().length);
+
+    /**
+     * @param limit the most bytes which may be reserved, or 0 for no limit.
+     */
+    public ExternalMemory(long limit) {
+        this.limit = limit;
+    }
+
+    public long getLimit() {
+        return this.limit;
+    }
+
+    /**
+     * Count <code>bytes</code> about to be allocated, unless doing so would
+     * exceed the limit.
+     *
+     * @return true if the bytes were counted, otherwise false.
+     */
+    public boolean reserve(Source source, long bytes) {
+        if (this.limit > 0) {
+            long current;
+            do {
+                current = this.total.get();
+                if (current + bytes > this.limit) {
+                    return false;
+                }
+            } while (!this.total.compareAndSet(current, current + bytes));
+        } else {
+            this.total.addAndGet(bytes);
+        }
+        this.bySource.addAndGet(source.ordinal(), bytes);
+        return true;
+    }
+
+    /**
+     * Count <code>bytes</code> which have already been allocated.
+     */
+    public void add(Source source, long bytes) {
+        this.total.addAndGet(bytes);
+        this.bySource.addAndGet(source.ordinal(), bytes);
+    }
+
+    public void release(Source source, long bytes) {
+        this.total.addAndGet(-bytes);
+        this.bySource.addAndGet(source.ordinal(), -bytes);
+    }
+
+    public long getTotal() {
+        return this.total.get();
+    }
+
+    public long get(Source source) {
+        return this.bySource.get(source.ordinal());
+    }
+
+    public long get(String source) {
+        return get(Source.forName(source));
+    }
+}
@@ -17,7 +17,6 @@
 package io.nodyn.smalloc;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 import io.nodyn.buffer.NettyExternalIndexedData;
 import org.dynjs.runtime.JSObject;
 
@@ -26,27 +25,33 @@ import org.dynjs.runtime.JSObject;
  */
 public class Smalloc {
 
-    public static Object alloc(JSObject obj, int size) throws Exception {
+    private final BufferAllocator allocator;
+
+    public Smalloc(BufferAllocator allocator) {
+        this.allocator = allocator;
+    }
+
+    public BufferAllocator getAllocator() {
+        return this.allocator;
+    }
+
+    public Object alloc(JSObject obj, int size) throws Exception {
         if ( obj.hasExternalIndexedData() ) {
             throw new Exception( "already has external data" );
         }
 
-        ByteBuf b = Unpooled.buffer(size);
+        ByteBuf b = this.allocator.allocate(size);
+        if ( b == null ) {
+            // over the external memory limit
+            return null;
+        }
+        this.allocator.track(obj, b);
         obj.setExternalIndexedData(new NettyExternalIndexedData(b));
         return obj;
     }
 
-    public static Object truncate(JSObject obj, int len) {
+    public Object truncate(JSObject obj, int len) {
         // we really have nothing to do?
         return obj;
     }
-
-    public static Object sliceOnto(JSObject src, JSObject dest, int start, int end) {
-        ByteBuf srcBuf = ((NettyExternalIndexedData)src.getExternalIndexedData()).buffer();
-        int len = end - start;
-        ByteBuf destBuf = srcBuf.slice( start, len );
-        destBuf.writerIndex(0);
-        dest.setExternalIndexedData(new NettyExternalIndexedData(destBuf));
-        return src;
-    }
 }
@@ -22,9 +22,9 @@ import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelPipeline;
 import io.nodyn.handle.HandleWrap;
 import io.nodyn.NodeProcess;
+import io.nodyn.buffer.StringEncoder;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 
 /**
  * @author Bob McWhirter
@@ -70,21 +70,31 @@ public class StreamWrap extends HandleWrap {
     }
 
     public void writeBinaryString(String str) throws IOException {
-        ByteBuf buf = this.channelFuture.channel().alloc().buffer();
-        buf.writeBytes(str.getBytes(StandardCharsets.ISO_8859_1));
-        write(buf);
+        writeOneByteString(str);
     }
 
     public void writeUtf8String(String str) throws IOException {
-        ByteBuf buf = this.channelFuture.channel().alloc().buffer();
-        buf.writeBytes(str.getBytes("utf8"));
-        write(buf);
+        // encoded straight into a buffer of the exact size, without a byte[] between
+        int len = StringEncoder.utf8Length(str);
+        ByteBuf buf = this.channelFuture.channel().alloc().buffer(len);
+        buf.writerIndex(StringEncoder.bytes(StringEncoder.utf8Write(buf, str, 0, len)));
+        writeOwned(buf);
     }
 
     public void writeAsciiString(String str) throws IOException {
-        ByteBuf buf = this.channelFuture.channel().alloc().buffer();
-        buf.writeBytes(str.getBytes("us-ascii"));
-        write(buf);
+        writeOneByteString(str);
+    }
+
+    private void writeOneByteString(String str) {
+        int len = str.length();
+        ByteBuf buf = this.channelFuture.channel().alloc().buffer(len);
+        buf.writerIndex(StringEncoder.bytes(StringEncoder.oneByteWrite(buf, str, 0, len)));
+        writeOwned(buf);
+    }
+
+    private void writeOwned(ByteBuf buf) {
+        // nothing else holds buf, so the channel releases it once written
+        this.channelFuture.channel().writeAndFlush(buf);
     }
 
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.tcp;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.nodyn.Nodyn;
+import io.nodyn.netty.UnrefHandler;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Listening sockets shared by the isolates of one JVM.
+ *
+ * <p>As with the cluster module, the first isolate to listen on an address
+ * and port binds the socket, and later ones listening on the same address
+ * and port join it. Accepted connections are handed to the listening
+ * isolates round-robin. The socket is closed when the last one closes.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class SharedServers {
+
+    private final Map<String, Server> servers = new HashMap<>();
+
+    /**
+     * @return the future of the shared server channel.
+     */
+    public synchronized ChannelFuture listen(TCPWrap handle, EventLoopGroup group, String addr, int port) {
+        String key = addr + ":" + port;
+        Server server = this.servers.get(key);
+        // failed, though possibly not yet forgotten
+        if (server != null && server.channelFuture.isDone() && !server.channelFuture.isSuccess()) {
+            server = null;
+        }
+        if (server == null) {
+            final Server bound = new Server(key, group, addr, port);
+            this.servers.put(key, bound);
+            bound.channelFuture.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) throws Exception {
+                    if (!future.isSuccess()) {
+                        // so that the next to listen tries to bind again
+                        forget(bound);
+                    }
+                }
+            });
+            server = bound;
+        }
+        server.listeners.add(handle);
+        return server.channelFuture;
+    }
+
+    private synchronized void forget(Server server) {
+        if (this.servers.get(server.key) == server) {
+            this.servers.remove(server.key);
+        }
+    }
+
+    public synchronized void close(TCPWrap handle) {
+        for (Server server : this.servers.values()) {
+            if (server.listeners.remove(handle)) {
+                if (server.listeners.isEmpty()) {
+                    this.servers.remove(server.key);
+                    server.channelFuture.channel().close();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stop handing connections to the isolate <code>nodyn</code>, which has exited.
+     */
+    public synchronized void leave(Nodyn nodyn) {
+        Iterator<Server> iter = this.servers.values().iterator();
+        while (iter.hasNext()) {
+            Server server = iter.next();
+            for (TCPWrap listener : server.listeners) {
+                if (listener.getProcess().getNodyn() == nodyn) {
+                    server.listeners.remove(listener);
+                }
+            }
+            if (server.listeners.isEmpty()) {
+                iter.remove();
+                server.channelFuture.channel().close();
+            }
+        }
+    }
+
+    private class Server {
+
+        private final String key;
+        private final List<TCPWrap> listeners = new CopyOnWriteArrayList<>();
+        private final AtomicInteger next = new AtomicInteger();
+        private final ChannelFuture channelFuture;
+
+        Server(String key, EventLoopGroup group, String addr, int port) {
+            this.key = key;
+            ServerBootstrap bootstrap = new ServerBootstrap();
+            bootstrap.group(group);
+            bootstrap.channel(NioServerSocketChannel.class);
+            bootstrap.childHandler(new ChannelInitializer<Channel>() {
+                @Override
+                protected void initChannel(Channel ch) throws Exception {
+                    TCPWrap listener = next();
+                    if (listener == null) {
+                        ch.close();
+                        return;
+                    }
+                    ch.config().setAutoRead(false);
+                    ch.pipeline().addLast("emit.connection", new ConnectionEventHandler(listener.getProcess(), listener));
+                    ch.pipeline().addLast("handle", new UnrefHandler(listener));
+                }
+            });
+            this.channelFuture = bootstrap.bind(addr, port);
+        }
+
+        TCPWrap next() {
+            // a snapshot, as isolates may stop listening concurrently
+            Object[] listeners = this.listeners.toArray();
+            if (listeners.length == 0) {
+                return null;
+            }
+            int i = (this.next.getAndIncrement() & Integer.MAX_VALUE) % listeners.length;
+            return (TCPWrap) listeners[i];
+        }
+    }
+}
@@ -31,6 +31,7 @@ import io.nodyn.netty.UnrefHandler;
 import io.nodyn.stream.StreamWrap;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.nio.channels.SocketChannel;
 import java.util.concurrent.CountDownLatch;
@@ -42,6 +43,7 @@ public class TCPWrap extends StreamWrap {
 
     private String addr;
     private int port = -1;
+    private SharedServers sharedServers;
 
     public TCPWrap(NodeProcess process) {
         super(process, false);
@@ -56,10 +58,12 @@ public class TCPWrap extends StreamWrap {
         channel.pipeline().addLast("emit.eof", new EOFEventHandler(this.process, TCPWrap.this));
         channel.pipeline().addLast("handle", new UnrefHandler(this));
         process.getEventLoop().getEventLoopGroup().register(channel);
+        process.getEventLoop().trackChannel(channel);
     }
 
     public TCPWrap(NodeProcess process, ChannelFuture channelFuture) {
         super(process, channelFuture);
+        process.getEventLoop().trackChannel(channelFuture.channel());
     }
 
     public void bind(String addr, int port) {
@@ -68,6 +72,20 @@ public class TCPWrap extends StreamWrap {
     }
 
     public void listen(int backlog) {
+        SharedServers sharedServers = this.process.getNodyn().getSharedServers();
+        if (sharedServers != null) {
+            this.sharedServers = sharedServers;
+            this.channelFuture = sharedServers.listen(this, this.process.getEventLoop().getEventLoopGroup(), this.addr, this.port);
+            this.process.getEventLoop().trackServer(new Runnable() {
+                @Override
+                public void run() {
+                    TCPWrap.this.sharedServers.close(TCPWrap.this);
+                }
+            });
+            ref();
+            return;
+        }
+
         ServerBootstrap bootstrap = new ServerBootstrap();
         bootstrap.group(this.process.getEventLoop().getEventLoopGroup());
         bootstrap.channel(NioServerSocketChannel.class);
@@ -80,7 +98,8 @@ public class TCPWrap extends StreamWrap {
                 ch.pipeline().addLast("handle", new UnrefHandler(TCPWrap.this));
             }
         });
-        this.channelFuture = bootstrap.bind(this.addr, this.port);
+        this.channelFuture = this.process.getEventLoop().bind(bootstrap, new InetSocketAddress(this.addr, this.port));
+        this.process.getEventLoop().trackServer(this.channelFuture.channel());
         this.channelFuture.addListener(new ChannelFutureListener() {
             @Override
             public void operationComplete(ChannelFuture future) throws Exception {
@@ -115,6 +134,7 @@ public class TCPWrap extends StreamWrap {
         });
 
         this.channelFuture = bootstrap.connect(addr, port);
+        this.process.getEventLoop().trackChannel(this.channelFuture.channel());
         this.channelFuture.addListener(new ChannelFutureListener() {
             @Override
             public void operationComplete(ChannelFuture future) throws Exception {
@@ -124,21 +144,59 @@ public class TCPWrap extends StreamWrap {
         ref();
     }
 
+    @Override
+    public void close() {
+        if (this.sharedServers != null) {
+            // the socket is closed once no isolate listens on it
+            this.sharedServers.close(this);
+            this.sharedServers = null;
+            this.channelFuture = null;
+        }
+        super.close();
+    }
+
     @Override
     public void shutdown() throws InterruptedException {
-        ((NioSocketChannel) this.channelFuture.await().channel()).shutdownOutput();
+        // once connected, without waiting on the loop which would connect it
+        this.channelFuture.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (future.isSuccess()) {
+                    ((NioSocketChannel) future.channel()).shutdownOutput();
+                }
+            }
+        });
     }
 
     public SocketAddress getRemoteAddress() throws InterruptedException {
-        return this.channelFuture.await().channel().remoteAddress();
+        Channel channel = completedChannel();
+        return channel == null ? null : channel.remoteAddress();
     }
 
     public SocketAddress getLocalAddress() throws InterruptedException {
-        return this.channelFuture.await().channel().localAddress();
+        Channel channel = completedChannel();
+        return channel == null ? null : channel.localAddress();
     }
 
     public int getFd() throws NoSuchFieldException, IllegalAccessException, IOException, InterruptedException {
-        return UnsafeTcp.getFd((NioSocketChannel) this.channelFuture.await().channel());
+        Channel channel = completedChannel();
+        if (channel == null) {
+            return -1;
+        }
+        return UnsafeTcp.getFd((NioSocketChannel) channel);
+    }
 
+    /**
+     * @return the channel once bound or connected, or null if that is still to
+     *         happen on the pinned loop, which would never get to it while waited on.
+     */
+    private Channel completedChannel() throws InterruptedException {
+        if (this.channelFuture.isDone()) {
+            return this.channelFuture.channel();
+        }
+        if (this.process.getEventLoop().inPinnedLoop()) {
+            return null;
+        }
+        return this.channelFuture.await().channel();
     }
 }
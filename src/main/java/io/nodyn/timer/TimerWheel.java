@@ -0,0 +1,208 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.nodyn.timer;
+
+import io.nodyn.loop.EventLoop;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A hashed timing wheel of one-millisecond slots for TimerWraps.
+ *
+ * <p>Timers are linked directly into the slot for their deadline, so
+ * starting and stopping one is O(1) and allocates nothing. Rather than
+ * ticking continuously, a single task is scheduled for the next occupied
+ * slot; timers more than a rotation away simply stay put when their slot
+ * comes round early.</p>
+ *
+ * <p>All methods must be called on the event loop's user-task thread,
+ * which is also where the wheel is advanced, so it needs no locking.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class TimerWheel {
+
+    static final int SLOTS = 512;
+    private static final int MASK = SLOTS - 1;
+
+    private final EventLoop loop;
+    private final Timer[] slots = new Timer[SLOTS];
+    private final long origin = System.nanoTime();
+
+    // loop time, in milliseconds
+    private long time;
+    // every slot up to and including this tick has been processed
+    private long tick;
+    private int count;
+
+    private ScheduledFuture<?> wakeup;
+    private long wakeupTick = Long.MAX_VALUE;
+
+    private final Runnable expire = new Runnable() {
+        @Override
+        public void run() {
+            expire();
+        }
+    };
+
+    public TimerWheel(EventLoop loop) {
+        this.loop = loop;
+    }
+
+    /**
+     * @return the loop time as of the last update, in milliseconds.
+     */
+    public long now() {
+        return this.time;
+    }
+
+    public long updateTime() {
+        this.time = clock();
+        return this.time;
+    }
+
+    private long clock() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.origin);
+    }
+
+    public int size() {
+        return this.count;
+    }
+
+    void add(Timer timer, long timeout) {
+        long deadline = Math.max(this.time + timeout, this.tick + 1);
+        timer.deadline = deadline;
+
+        int slot = (int) (deadline & MASK);
+        Timer head = this.slots[slot];
+        timer.prev = null;
+        timer.next = head;
+        if (head != null) {
+            head.prev = timer;
+        }
+        this.slots[slot] = timer;
+        timer.scheduled = true;
+        ++this.count;
+
+        if (deadline < this.wakeupTick) {
+            schedule(deadline);
+        }
+    }
+
+    void remove(Timer timer) {
+        if (!timer.scheduled) {
+            return;
+        }
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            this.slots[(int) (timer.deadline & MASK)] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.prev = null;
+        timer.next = null;
+        timer.scheduled = false;
+        --this.count;
+        // a wakeup left pending for this timer finds nothing due, and is harmless
+    }
+
+    private void expire() {
+        this.wakeup = null;
+        this.wakeupTick = Long.MAX_VALUE;
+
+        long now = updateTime();
+        if (now > this.tick) {
+            long span = Math.min(now - this.tick, SLOTS);
+            long last = this.tick + span;
+            for (long t = this.tick + 1; t <= last; ++t) {
+                // timers added while expiring go after this slot
+                this.tick = t;
+                expireSlot((int) (t & MASK), now);
+            }
+            this.tick = now;
+        }
+
+        if (this.count > 0) {
+            schedule(nextTick());
+        }
+    }
+
+    private void expireSlot(int slot, long now) {
+        Timer timer = this.slots[slot];
+        while (timer != null) {
+            Timer next = timer.next;
+            if (timer.deadline <= now) {
+                remove(timer);
+                if (timer.repeat > 0) {
+                    add(timer, timer.repeat);
+                }
+                timer.expired();
+                // which may have stopped the next timer, unlinking it from this slot
+                if (next != null && !isIn(next, slot)) {
+                    next = this.slots[slot];
+                }
+            }
+            timer = next;
+        }
+    }
+
+    private static boolean isIn(Timer timer, int slot) {
+        return timer.scheduled && (int) (timer.deadline & MASK) == slot;
+    }
+
+    /**
+     * @return the tick of the next occupied slot, which may hold only
+     *         timers due in a later rotation.
+     */
+    private long nextTick() {
+        for (int i = 1; i <= SLOTS; ++i) {
+            if (this.slots[(int) ((this.tick + i) & MASK)] != null) {
+                return this.tick + i;
+            }
+        }
+        return this.tick + SLOTS;
+    }
+
+    /**
+     * An entry in the wheel, such as the one behind each TimerWrap.
+     */
+    abstract static class Timer {
+
+        // maintained by the wheel
+        Timer prev;
+        Timer next;
+        long deadline;
+        boolean scheduled;
+
+        long repeat;
+
+        abstract void expired();
+    }
+
+    private void schedule(long deadline) {
+        if (this.wakeup != null) {
+            this.wakeup.cancel(false);
+        }
+        this.wakeupTick = deadline;
+        // leaves the loop time alone, so timers started together share it
+        long delay = Math.max(1, deadline - clock());
+        this.wakeup = this.loop.scheduleUserTask(this.expire, (int) Math.min(delay, Integer.MAX_VALUE), TimeUnit.MILLISECONDS);
+    }
+}
@@ -18,39 +18,57 @@ package io.nodyn.timer;
 
 import io.nodyn.handle.HandleWrap;
 import io.nodyn.NodeProcess;
-
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import io.nodyn.loop.LoopPhase;
 
 /**
  * @author Bob McWhirter
  */
-public class TimerWrap extends HandleWrap implements Runnable {
+public class TimerWrap extends HandleWrap {
 
-    public static long now() {
-        return System.currentTimeMillis();
-    }
+    private final TimerWheel wheel;
 
-    private ScheduledFuture<?> future;
+    private final TimerWheel.Timer timer = new TimerWheel.Timer() {
+        @Override
+        void expired() {
+            makeCallback( 0, LoopPhase.TIMERS );
+        }
+    };
 
     public TimerWrap(NodeProcess process) {
         super( process, true );
+        this.wheel = process.getTimerWheel();
     }
 
-    public void start(int msec, int repeat) {
-        // repeat seems to never be used?!
-        if ( msec == 0 ) {
-            msec = 1;
-        }
-        this.future = this.process.getEventLoop().getEventLoopGroup().schedule(this, msec, TimeUnit.MILLISECONDS);
+    public void start(long msec, long repeat) {
+        this.wheel.remove( this.timer );
+        this.timer.repeat = repeat;
+        this.wheel.add( this.timer, msec );
     }
 
     public void stop() {
-        this.future.cancel( false );
+        this.wheel.remove( this.timer );
+    }
+
+    /**
+     * Restart a repeating timer, with its repeat as the timeout.
+     */
+    public void again() {
+        if ( this.timer.repeat > 0 ) {
+            start( this.timer.repeat, this.timer.repeat );
+        }
+    }
+
+    public void setRepeat(long repeat) {
+        this.timer.repeat = repeat;
+    }
+
+    public long getRepeat() {
+        return this.timer.repeat;
     }
 
     @Override
-    public void run() {
-        makeCallback(0);
+    public void close() {
+        stop();
+        super.close();
     }
 }
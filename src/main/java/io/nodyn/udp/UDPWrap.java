@@ -52,8 +52,12 @@ public class UDPWrap extends HandleWrap {
                     return new NioDatagramChannel( family == Family.IPv4 ? InternetProtocolFamily.IPv4 : InternetProtocolFamily.IPv6 );
                 }
             });
-            this.channelFuture = bootstrap.localAddress(localAddress).bind();
-            this.channelFuture.sync();
+            this.channelFuture = this.process.getEventLoop().bind(bootstrap, localAddress);
+            if (!this.channelFuture.isDone()) {
+                this.channelFuture.sync();
+            } else if (this.channelFuture.cause() != null) {
+                return this.channelFuture.cause();
+            }
         } catch (Exception e) {
             return e; // if failure, return an error - udp_wrap.js should turn this into a JS Error
         }
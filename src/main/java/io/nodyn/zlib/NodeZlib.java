@@ -20,6 +20,7 @@ import io.netty.buffer.ByteBuf;
 import io.nodyn.CallbackResult;
 import io.nodyn.NodeProcess;
 import io.nodyn.handle.HandleWrap;
+import io.nodyn.loop.BlockingLane;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -27,6 +28,7 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.zip.*;
 
@@ -76,7 +78,16 @@ public class NodeZlib extends HandleWrap {
     }
 
     public void write(final int flush, final byte[] chunk, final int inOffset, final int inLen, final ByteBuf buffer, final int outOffset, final int outLen) {
-        process.getEventLoop().submitBlockingTask(new Runnable() {
+        try {
+            submitWrite(flush, chunk, inOffset, inLen, buffer, outOffset, outLen);
+        } catch (RejectedExecutionException e) {
+            // the cpu lane is full; emit is delivered on a later tick
+            emit("error", CallbackResult.createError(e));
+        }
+    }
+
+    private void submitWrite(final int flush, final byte[] chunk, final int inOffset, final int inLen, final ByteBuf buffer, final int outOffset, final int outLen) {
+        process.getEventLoop().submitBlockingTask(BlockingLane.CPU, new Runnable() {
             @Override
             public void run() {
                 try {
@@ -0,0 +1,65 @@
+
+
+// The head and chunked framing of outgoing messages are written straight
+// into buffers by io.nodyn.http.HTTPSerializer.
+var HTTPSerializer = io.nodyn.http.HTTPSerializer;
+var httpSerializer = new HTTPSerializer( process._process.bufferAllocator );
+
+function serialized(nettyBuffer) {
+  var b = process.binding('buffer').createBuffer( nettyBuffer, 'socket' );
+  process._process.bufferAllocator.releaseWith( b, nettyBuffer );
+  return b;
+}
+
+// formatted at most once a second, and shared by every message
+if ( typeof utcDate === 'function' ) {
+  utcDate = function() {
+    return HTTPSerializer.getDate();
+  };
+}
+
+var send = OutgoingMessage.prototype._send;
+
+OutgoingMessage.prototype._send = function(data, encoding, callback) {
+  if ( ! this._headerSent && util.isString( data ) ) {
+    // the head and the start of the body, encoded together
+    var head = httpSerializer.head( this._header, this.statusCode || 0, data, encoding || 'utf8' );
+    if ( head ) {
+      this._headerSent = true;
+      return this._writeRaw( serialized( head ), null, callback );
+    }
+  }
+  return send.call( this, data, encoding, callback );
+};
+
+var write = OutgoingMessage.prototype.write;
+
+OutgoingMessage.prototype.write = function(chunk, encoding, callback) {
+  if ( util.isFunction( encoding ) ) {
+    callback = encoding;
+    encoding = null;
+  }
+  if ( ! this.finished && util.isString( chunk ) && chunk.length > 0 ) {
+    // as write() itself would, so the head can go out with the first chunk
+    if ( ! this._header ) {
+      this._implicitHeader();
+    }
+    if ( this.chunkedEncoding && this._hasBody ) {
+      if ( ! this._headerSent ) {
+        // head, size, data and CRLF in one buffer
+        var both = httpSerializer.headAndChunk( this._header, this.statusCode || 0, chunk, encoding || 'utf8' );
+        if ( both ) {
+          this._headerSent = true;
+          return this._writeRaw( serialized( both ), null, callback );
+        }
+      } else {
+        // size, data and CRLF in one buffer
+        var framed = httpSerializer.chunk( chunk, encoding || 'utf8' );
+        if ( framed ) {
+          return this._send( serialized( framed ), null, callback );
+        }
+      }
+    }
+  }
+  return write.call( this, chunk, encoding, callback );
+};
@@ -0,0 +1,20 @@
+
+
+// Typed accessors backed by io.nodyn.buffer.Buffer
+process.binding('buffer').setupTypedAccessors(Buffer);
+
+// Buffer.concatShared is Buffer.concat without the copy: it composes the
+// buffers in list and so, like a slice, the result shares memory with them.
+// Buffer.concat itself still copies, as node's does.
+Buffer.concatShared = function(list, length) {
+  if ( ! util.isArray( list ) || list.length < 2 ) {
+    return Buffer.concat( list, length );
+  }
+  var buf = new NativeBuffer();
+  var len = process.binding('buffer').concatOnto( list, util.isUndefined( length ) ? -1 : length >>> 0, buf );
+  if ( len < 0 ) {
+    return Buffer.concat( list, length );
+  }
+  buf.length = len;
+  return buf;
+};
@@ -14,10 +14,130 @@
  * limitations under the License.
  */
 
+var JBuffer = io.nodyn.buffer.Buffer;
+
+// ----------------------------------------
+// Typed accessors
+// ----------------------------------------
+
+function checkOffset(buf, offset, ext) {
+  if ( offset + ext > buf.length ) {
+    throw new RangeError( "index out of range" );
+  }
+}
+
+function checkValue(value, max, min) {
+  if ( value > max || value < min ) {
+    throw new TypeError( "value is out of bounds" );
+  }
+}
+
+function reader(fn, ext) {
+  return function(offset, noAssert) {
+    offset = offset >>> 0;
+    if ( ! noAssert ) {
+      checkOffset( this, offset, ext );
+    }
+    return fn( this, offset );
+  };
+}
+
+function writer(fn, ext, max, min) {
+  return function(value, offset, noAssert) {
+    value  = +value;
+    offset = offset >>> 0;
+    if ( ! noAssert ) {
+      checkValue( value, max, min );
+      checkOffset( this, offset, ext );
+    }
+    return fn( this, value, offset );
+  };
+}
+
+function variableReader(fn) {
+  return function(offset, byteLength, noAssert) {
+    offset     = offset >>> 0;
+    byteLength = byteLength >>> 0;
+    if ( ! noAssert ) {
+      checkOffset( this, offset, byteLength );
+    }
+    return fn( this, offset, byteLength );
+  };
+}
+
+function variableWriter(fn, signed) {
+  return function(value, offset, byteLength, noAssert) {
+    value      = +value;
+    offset     = offset >>> 0;
+    byteLength = byteLength >>> 0;
+    if ( ! noAssert ) {
+      if ( signed ) {
+        var limit = Math.pow( 2, ( 8 * byteLength ) - 1 );
+        checkValue( value, limit - 1, -limit );
+      } else {
+        checkValue( value, Math.pow( 2, 8 * byteLength ) - 1, 0 );
+      }
+      checkOffset( this, offset, byteLength );
+    }
+    return fn( this, value, offset, byteLength );
+  };
+}
+
+module.exports.setupTypedAccessors = function(target) {
+  var proto = target.prototype;
+
+  proto.readUInt8    = reader( JBuffer.readUInt8,    1 );
+  proto.readInt8     = reader( JBuffer.readInt8,     1 );
+  proto.readUInt16LE = reader( JBuffer.readUInt16LE, 2 );
+  proto.readUInt16BE = reader( JBuffer.readUInt16BE, 2 );
+  proto.readInt16LE  = reader( JBuffer.readInt16LE,  2 );
+  proto.readInt16BE  = reader( JBuffer.readInt16BE,  2 );
+  proto.readUInt32LE = reader( JBuffer.readUInt32LE, 4 );
+  proto.readUInt32BE = reader( JBuffer.readUInt32BE, 4 );
+  proto.readInt32LE  = reader( JBuffer.readInt32LE,  4 );
+  proto.readInt32BE  = reader( JBuffer.readInt32BE,  4 );
+  proto.readFloatLE  = reader( JBuffer.readFloatLE,  4 );
+  proto.readFloatBE  = reader( JBuffer.readFloatBE,  4 );
+  proto.readDoubleLE = reader( JBuffer.readDoubleLE, 8 );
+  proto.readDoubleBE = reader( JBuffer.readDoubleBE, 8 );
+
+  proto.readUIntLE = variableReader( JBuffer.readUIntLE );
+  proto.readUIntBE = variableReader( JBuffer.readUIntBE );
+  proto.readIntLE  = variableReader( JBuffer.readIntLE );
+  proto.readIntBE  = variableReader( JBuffer.readIntBE );
+
+  proto.writeUInt8    = writer( JBuffer.writeInt8,    1, 0xff,       0 );
+  proto.writeInt8     = writer( JBuffer.writeInt8,    1, 0x7f,       -0x80 );
+  proto.writeUInt16LE = writer( JBuffer.writeInt16LE, 2, 0xffff,     0 );
+  proto.writeUInt16BE = writer( JBuffer.writeInt16BE, 2, 0xffff,     0 );
+  proto.writeInt16LE  = writer( JBuffer.writeInt16LE, 2, 0x7fff,     -0x8000 );
+  proto.writeInt16BE  = writer( JBuffer.writeInt16BE, 2, 0x7fff,     -0x8000 );
+  proto.writeUInt32LE = writer( JBuffer.writeInt32LE, 4, 0xffffffff, 0 );
+  proto.writeUInt32BE = writer( JBuffer.writeInt32BE, 4, 0xffffffff, 0 );
+  proto.writeInt32LE  = writer( JBuffer.writeInt32LE, 4, 0x7fffffff, -0x80000000 );
+  proto.writeInt32BE  = writer( JBuffer.writeInt32BE, 4, 0x7fffffff, -0x80000000 );
+
+  // node range-checks only the offset for floating point values
+  proto.writeFloatLE  = writer( JBuffer.writeFloatLE,  4, Infinity, -Infinity );
+  proto.writeFloatBE  = writer( JBuffer.writeFloatBE,  4, Infinity, -Infinity );
+  proto.writeDoubleLE = writer( JBuffer.writeDoubleLE, 8, Infinity, -Infinity );
+  proto.writeDoubleBE = writer( JBuffer.writeDoubleBE, 8, Infinity, -Infinity );
+
+  proto.writeUIntLE = variableWriter( JBuffer.writeIntLE, false );
+  proto.writeUIntBE = variableWriter( JBuffer.writeIntBE, false );
+  proto.writeIntLE  = variableWriter( JBuffer.writeIntLE, true );
+  proto.writeIntBE  = variableWriter( JBuffer.writeIntBE, true );
+};
+
 module.exports.setupBufferJS = function(target, internal) {
-  module.exports.createBuffer = function(nettyBuffer) {
-    var b = new target(nettyBuffer.readableBytes());
+  // source is what to count the memory against in process.memoryUsage(),
+  // one of 'socket', 'crypto' or 'other'.
+  module.exports.createBuffer = function(nettyBuffer, source) {
+    // the memory is already allocated, so don't have the ctor allocate more
+    var b = new target(0);
+    b.length = nettyBuffer.readableBytes();
     io.nodyn.buffer.Buffer.inject( b, nettyBuffer );
+    process._process.bufferAllocator.account( b, nettyBuffer, source || 'other' );
     return b;
   }
 
@@ -29,6 +149,10 @@ module.exports.setupBufferJS = function(target, internal) {
     return io.nodyn.buffer.Buffer.extractByteArray(obj);
   }
 
+  module.exports.concatOnto = function(list, length, dest) {
+    return process._process.bufferViews.concatOnto( list, length, dest );
+  }
+
   // ----------------------------------------
   // Prototype
   // ----------------------------------------
@@ -59,12 +183,24 @@ module.exports.setupBufferJS = function(target, internal) {
     return io.nodyn.buffer.Buffer.utf8Slice( this, start, end )
   };
 
+  // --decode-cache shares the strings decoded from short slices
+  var decodeCache = process._process.decodeCache;
+  if ( decodeCache ) {
+    target.prototype.asciiSlice = function(start, end) {
+      return decodeCache.asciiSlice( this, start, end );
+    };
+
+    target.prototype.utf8Slice = function(start, end) {
+      return decodeCache.utf8Slice( this, start, end );
+    };
+  }
+
   // Write
 
   target.prototype.asciiWrite = function(str, offset, len) {
     offset = offset || 0;
     len    = len    || this.length;
-    var l = io.nodyn.buffer.Buffer.asciiWrite( this, start, end );
+    var l = io.nodyn.buffer.Buffer.asciiWrite( this, str, offset, len );
     Buffer._charsWritten = l;
     return l;
   };
@@ -90,7 +226,7 @@ module.exports.setupBufferJS = function(target, internal) {
     len    = len    || this.length;
     var l = io.nodyn.buffer.Buffer.hexWrite( this, str, offset, len );
     Buffer._charsWritten = l * 2;
-    return;
+    return l;
   };
 
   target.prototype.ucs2Write = function(str, offset, len) {
@@ -109,37 +245,9 @@ module.exports.setupBufferJS = function(target, internal) {
     return l[1];
   };
 
-  target.prototype.readDoubleBE = function(offset, noAssert) {
-    return io.nodyn.buffer.Buffer.readDoubleBE( this, offset );
-  };
-
-  target.prototype.readDoubleLE = function(offset, noAssert) {
-    return io.nodyn.buffer.Buffer.readDoubleLE( this, offset );
-  };
-
-  target.prototype.readFloatBE = function(offset, noAssert) {
-    return io.nodyn.buffer.Buffer.readFloatBE( this, offset );
-  };
-
-  target.prototype.readFloatLE = function(offset, noAssert) {
-    return io.nodyn.buffer.Buffer.readFloatLE( this, offset );
-  };
-
-  target.prototype.writeDoubleBE = function(value, offset, noAssert) {
-    return io.nodyn.buffer.Buffer.writeDoubleBE( this, value, offset );
-  };
-
-  target.prototype.writeDoubleLE = function(value, offset, noAssert) {
-    return io.nodyn.buffer.Buffer.writeDoubleLE( this, value, offset );
-  };
-
-  target.prototype.writeFloatBE = function(value, offset, noAssert) {
-    return io.nodyn.buffer.Buffer.writeFloatBE( this, value, offset );
-  };
-
-  target.prototype.writeFloatLE = function(value, offset, noAssert) {
-    return io.nodyn.buffer.Buffer.writeFloatLE( this, value, offset );
-  };
+  // lib/buffer.js replaces the integer accessors with its own, so
+  // nodyn/annex/buffer.js installs these again once it has loaded.
+  module.exports.setupTypedAccessors( target );
 
   // ----------------------------------------
 
@@ -181,12 +289,20 @@ module.exports.setupBufferJS = function(target, internal) {
     return io.nodyn.buffer.Buffer.fill( this, value, offset, end );
   };
 
+  target.prototype.indexOf = function(val, byteOffset) {
+    return io.nodyn.buffer.Buffer.indexOf( this, val, byteOffset || 0 );
+  };
+
   // ----------------------------------------
   // Internal
   // ----------------------------------------
 
   internal.compare = function(a,b) {
+    return io.nodyn.buffer.Buffer.compare( a, b );
+  };
 
+  internal.fill = function(obj, val, start, end) {
+    return io.nodyn.buffer.Buffer.fill( obj, val, start, end );
   };
 
   internal.byteLength = io.nodyn.buffer.Internal.byteLength;
@@ -41,6 +41,10 @@ function translateError(err) {
     }
     return c;
   }
+  if ( err instanceof java.util.concurrent.RejectedExecutionException ) {
+    // the dns threadpool queue is full
+    return process.binding('uv').UV_EAGAIN;
+  }
 
   return err.toString();
 }
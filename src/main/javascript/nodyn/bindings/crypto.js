@@ -27,7 +27,7 @@ function bufferChunk(chunk, encoding) {
 
 
 function digest(outputEncoding) {
-  var buf = process.binding('buffer').createBuffer( this._delegate.digest() );
+  var buf = process.binding('buffer').createBuffer( this._delegate.digest(), 'crypto' );
 
   if ( outputEncoding && outputEncoding != 'buffer' ) {
     return buf.toString( outputEncoding );
@@ -280,8 +280,8 @@ CipherBase.prototype.init = function(cipher, password) {
   var keyIv = generateKeyIv( password, algo );
 
   this.initiv( cipher,
-               process.binding('buffer').createBuffer( keyIv.key ),
-               process.binding('buffer').createBuffer( keyIv.iv ) );
+               process.binding('buffer').createBuffer( keyIv.key, 'crypto' ),
+               process.binding('buffer').createBuffer( keyIv.iv, 'crypto' ) );
 }
 
 CipherBase.prototype.initiv = function(cipher, key, iv) {
@@ -298,7 +298,7 @@ CipherBase.prototype.initiv = function(cipher, key, iv) {
 CipherBase.prototype.update = update;
 
 CipherBase.prototype.final = function() {
-  return process.binding('buffer').createBuffer( this._delegate.doFinal() );
+  return process.binding('buffer').createBuffer( this._delegate.doFinal(), 'crypto' );
 }
 
 module.exports.CipherBase = CipherBase;
@@ -331,7 +331,7 @@ Sign.prototype.update = update;
 
 Sign.prototype.sign = function(key, junk, passphrase) {
   var ret = this._delegate.sign(key._nettyBuffer(), passphrase);
-  return process.binding('buffer').createBuffer( ret );
+  return process.binding('buffer').createBuffer( ret, 'crypto' );
 }
 
 module.exports.Sign = Sign;
@@ -365,12 +365,12 @@ function pbkdf2(password, salt, iterations, keylen, digest, callback) {
     blocking.unblock( function() {
       callback( null, ret );
     })();
-  });
+  }, 'cpu', callback );
 }
 
 function pbkdf2Sync(password, salt, iterations, keylen, digest) {
   var key = io.nodyn.crypto.PBKDF2.pbkdf2( password._nettyBuffer(), salt._nettyBuffer(), iterations, keylen );
-  return process.binding('buffer').createBuffer( key );
+  return process.binding('buffer').createBuffer( key, 'crypto' );
 }
 
 module.exports.PBKDF2 = function(password, salt, iterations, keylen, digest, callback) {
@@ -384,11 +384,11 @@ module.exports.PBKDF2 = function(password, salt, iterations, keylen, digest, cal
 function randomBytes(size, callback) {
   blocking.submit( function() {
     var ret = io.nodyn.crypto.RandomGenerator.random(size);
-    ret = process.binding('buffer').createBuffer(ret);
+    ret = process.binding('buffer').createBuffer(ret, 'crypto');
     blocking.unblock( function() {
       callback( null, ret );
     })();
-  } );
+  }, 'cpu', callback );
 }
 
 function randomBytesSync(size) {
@@ -398,11 +398,11 @@ function randomBytesSync(size) {
 function pseudoRandomBytes(size, callback) {
   blocking.submit( function() {
     var ret = io.nodyn.crypto.RandomGenerator.pseudoRandom(size);
-    ret = process.binding('buffer').createBuffer(ret);
+    ret = process.binding('buffer').createBuffer(ret, 'crypto');
     blocking.unblock( function() {
       callback( null, ret );
     })();
-  } );
+  }, 'cpu', callback );
 }
 
 function pseudoRandomBytesSync(size) {
@@ -414,7 +414,7 @@ module.exports.randomBytes = function(size, callback) {
     randomBytes(size, callback);
   } else {
     var ret = randomBytesSync(size);
-    ret = process.binding('buffer').createBuffer(ret);
+    ret = process.binding('buffer').createBuffer(ret, 'crypto');
     return ret;
   }
 }
@@ -424,7 +424,7 @@ module.exports.pseudoRandomBytes = function(size, callback) {
     pseudoRandomBytes(size, callback);
   } else {
     var ret = pseudoRandomBytesSync(size);
-    ret = process.binding('buffer').createBuffer(ret);
+    ret = process.binding('buffer').createBuffer(ret, 'crypto');
     return ret;
   }
 }
@@ -509,7 +509,7 @@ function DiffieHellmanGroup(name) {
 module.exports.DiffieHellmanGroup = DiffieHellmanGroup;
 
 function dhGetPrime() {
-  return process.binding('buffer').createBuffer( this._dh.prime );
+  return process.binding('buffer').createBuffer( this._dh.prime, 'crypto' );
 }
 
 DiffieHellmanGroup.prototype.getPrime = dhGetPrime;
@@ -519,7 +519,7 @@ DiffieHellman.prototype.getPrime = dhGetPrime;
 function dhGenerateKeys() {
   var publicBytes = this._dh.generateKeys();
   this._generated = true;
-  return process.binding('buffer').createBuffer( publicBytes );
+  return process.binding('buffer').createBuffer( publicBytes, 'crypto' );
 }
 
 DiffieHellman.prototype.generateKeys = dhGenerateKeys;
@@ -530,7 +530,7 @@ function dhGetPublicKey() {
     throw new Error( "No public key - did you forget to generate one?")
   }
 
-  return process.binding('buffer').createBuffer( this._dh.publicKey );
+  return process.binding('buffer').createBuffer( this._dh.publicKey, 'crypto' );
 }
 
 DiffieHellman.prototype.getPublicKey = dhGetPublicKey;
@@ -541,14 +541,14 @@ function dhGetPrivateKey() {
     throw new Error( "No private key - did you forget to generate one?")
   }
 
-  return process.binding('buffer').createBuffer( this._dh.privateKey );
+  return process.binding('buffer').createBuffer( this._dh.privateKey, 'crypto' );
 }
 
 DiffieHellman.prototype.getPrivateKey = dhGetPrivateKey;
 DiffieHellmanGroup.prototype.getPrivateKey = dhGetPrivateKey;
 
 function dhGetGenerator() {
-  return process.binding('buffer').createBuffer( this._dh.generator );
+  return process.binding('buffer').createBuffer( this._dh.generator, 'crypto' );
 }
 
 DiffieHellman.prototype.getGenerator = dhGetGenerator;
@@ -556,7 +556,7 @@ DiffieHellmanGroup.prototype.getGenerator = dhGetGenerator;
 
 function dhComputeSecret(other) {
   var secret = this._dh.computeSecret( process.binding('buffer').extractBuffer( other ) );
-  return process.binding('buffer').createBuffer( secret );
+  return process.binding('buffer').createBuffer( secret, 'crypto' );
 }
 
 DiffieHellman.prototype.computeSecret = dhComputeSecret;
@@ -37,7 +37,7 @@ function executeWork(work, async, throws) {
       var result = work();
       result = result || {};
       blocking.unblock(async)( result.err, result.result );
-    });
+    }, 'fs', async);
   } else { // Sync
     var result = work();
     result = result || {};
@@ -240,7 +240,7 @@ binding.read = function(fd, buffer, offset, length, position, callback) {
       blocking.unblock(function() {
         callback(undefined, bytes, buffer);
       })();
-    }.bind(this));
+    }.bind(this), 'fs', callback);
   } else { // Sync
     if ( position && position !== -1 ) {
       bytes = Fs.pread(posix, fd, buffer._nettyBuffer(), offset, length, position);
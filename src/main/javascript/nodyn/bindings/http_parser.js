@@ -21,25 +21,32 @@ function HTTPParser() {
   this._parser.on( 'headersComplete', HTTPParser.prototype._onHeadersComplete.bind(this) );
   this._parser.on( 'body',            HTTPParser.prototype._onBody.bind(this) );
   this._parser.on( 'messageComplete', HTTPParser.prototype._onMessageComplete.bind(this) );
+  this._parser.on( 'batch',           HTTPParser.prototype._onBatch.bind(this) );
+  // pipelined requests are delivered together, once per execute()
+  this._parser.batching = true;
 }
 
 // ----------------------------------------
 
 HTTPParser.prototype._onHeadersComplete = function(result) {
-  this.method          = this._parser.method;
-  this.url             = this._parser.url;
-  this.versionMajor    = this._parser.versionMajor;
-  this.versionMinor    = this._parser.versionMinor;
-  this.shouldKeepAlive = this._parser.shouldKeepAlive;
+  return this._headersComplete( this._parser );
+}
+
+HTTPParser.prototype._headersComplete = function(message) {
+  this.method          = message.method;
+  this.url             = message.url;
+  this.versionMajor    = message.versionMajor;
+  this.versionMinor    = message.versionMinor;
+  this.shouldKeepAlive = message.shouldKeepAlive;
 
   this.statusCode      = this._parser.statusCode;
   this.statusMessage   = this._parser.statusMessage;
 
-  this.upgrade         = this._parser.upgrade;
+  this.upgrade         = message.upgrade;
 
   // headers
   this.headers = [];
-  var jHeaders = this._parser.headers;
+  var jHeaders = message.headers;
   for ( var i = 0 ; i < jHeaders.length ; ++i ) {
     this.headers.push( jHeaders[i] );
   }
@@ -48,15 +55,23 @@ HTTPParser.prototype._onHeadersComplete = function(result) {
 }
 
 HTTPParser.prototype._onBody = function(result) {
-  //var buffer = new Buffer( result.result );
-  var buffer = process.binding('buffer').createBuffer( result.result );
+  return this._body( result.result );
+}
+
+HTTPParser.prototype._body = function(buf) {
+  var buffer = process.binding('buffer').createBuffer( buf, 'socket' );
+  // the body shares the socket's memory, so must keep it from being recycled
+  process._process.bufferAllocator.retain( buffer, buf );
   return this[HTTPParser.kOnBody].call(this, buffer, 0, buffer.length);
 }
 
 HTTPParser.prototype._onMessageComplete = function(result) {
+  this._messageComplete( this._parser.trailers );
+}
+
+HTTPParser.prototype._messageComplete = function(jHeaders) {
   // trailers
   this._headers = [];
-  var jHeaders = this._parser.trailers;
   for ( var i = 0 ; i < jHeaders.length ; ++i ) {
     this._headers.push( jHeaders[i] );
   }
@@ -64,6 +79,24 @@ HTTPParser.prototype._onMessageComplete = function(result) {
   this[HTTPParser.kOnMessageComplete].call(this);
 }
 
+HTTPParser.prototype._onBatch = function(result) {
+  var events = result.result;
+  for ( var i = 0 ; i < events.length ; ++i ) {
+    var event = events[i];
+    switch ( event.name ) {
+      case 'headersComplete':
+        this._headersComplete( event.result );
+        break;
+      case 'body':
+        this._body( event.result );
+        break;
+      case 'messageComplete':
+        this._messageComplete( event.result );
+        break;
+    }
+  }
+}
+
 // ----------------------------------------
 // ----------------------------------------
 
@@ -91,6 +124,15 @@ HTTPParser.prototype.finish = function() {
   this._parser.finish();
 }
 
+HTTPParser.prototype.pause = function() {
+  this._parser.pause();
+}
+
+HTTPParser.prototype.resume = function() {
+  // parses anything which arrived while paused
+  return this._parser.resume();
+}
+
 HTTPParser.kOnHeaders = 0;
 HTTPParser.kOnHeadersComplete = 1;
 HTTPParser.kOnBody = 2;
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+"use strict";
+
+// Event loop instrumentation; all durations are in milliseconds.
+
+function summarize(histogram) {
+  return {
+    count: histogram.count,
+    mean: histogram.mean,
+    p50: histogram.getPercentile( 50 ),
+    p90: histogram.getPercentile( 90 ),
+    p99: histogram.getPercentile( 99 ),
+    max: histogram.max
+  };
+}
+
+module.exports.getStats = function() {
+  var stats = process.EVENT_LOOP.stats;
+  var runTime = {};
+  var names = stats.taskNames;
+  for ( var i = 0 ; i < names.length ; ++i ) {
+    var histogram = stats.getRunTime( names[i] );
+    if ( histogram ) {
+      runTime[ names[i] ] = summarize( histogram );
+    }
+  }
+  var blocking = {};
+  var lanes = stats.blockingLanes;
+  for ( var j = 0 ; j < lanes.length ; ++j ) {
+    blocking[ lanes[j] ] = {
+      queued: stats.blockingQueueDepth( lanes[j] ),
+      active: stats.blockingActiveCount( lanes[j] ),
+      completed: stats.blockingCompletedTaskCount( lanes[j] ),
+      size: stats.blockingPoolSize( lanes[j] )
+    };
+  }
+  return {
+    utilization: stats.utilization,
+    busy: stats.busyTime,
+    elapsed: stats.elapsedTime,
+    queueDelay: summarize( stats.queueDelay ),
+    runTime: runTime,
+    blocking: blocking
+  };
+};
+
+module.exports.reset = function() {
+  process.EVENT_LOOP.stats.reset();
+};
@@ -46,7 +46,7 @@ Pipe.prototype._onDataWithHandle = function(result) {
   var handle;
 
   if ( buffer ) {
-    b = process.binding('buffer').createBuffer( buffer );
+    b = process.binding('buffer').createBuffer( buffer, 'socket' );
     nread = buffer.readableBytes();
   }
 
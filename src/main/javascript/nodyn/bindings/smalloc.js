@@ -14,16 +14,22 @@
  * limitations under the License.
  */
 
+var smalloc = new io.nodyn.smalloc.Smalloc( process._process.bufferAllocator );
+var views   = process._process.bufferViews;
+
 module.exports.alloc = function(obj, len, type) {
-  return io.nodyn.smalloc.Smalloc.alloc(obj, len);
+  if ( ! smalloc.alloc(obj, len) ) {
+    throw new RangeError( "Allocating " + len + " bytes would exceed --max-external-memory" );
+  }
+  return obj;
 };
 
 module.exports.truncate = function(obj, len) {
-  return io.nodyn.smalloc.Smalloc.truncate(obj, len);
+  return smalloc.truncate(obj, len);
 };
 
 module.exports.sliceOnto = function(src, dest, start, end) {
-  return io.nodyn.smalloc.Smalloc.sliceOnto(src, dest, start, end);
+  return views.sliceOnto(src, dest, start, end);
 };
 
 module.exports.kMaxLength = 0x3fffffff;
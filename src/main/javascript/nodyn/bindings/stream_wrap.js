@@ -35,7 +35,7 @@ util.inherits(Stream, Handle);
 
 Stream.prototype._onData = function(result) {
   var nread = result.result.readableBytes();
-  var b = process.binding('buffer').createBuffer( result.result );
+  var b = process.binding('buffer').createBuffer( result.result, 'socket' );
   this.onread( nread, b );
 };
 
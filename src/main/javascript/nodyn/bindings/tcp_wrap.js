@@ -76,6 +76,10 @@ TCP.prototype._onAfterConnect = function(result) {
 
 TCP.prototype.getpeername = function(out) {
   var remote = this._tcp.remoteAddress;
+  if ( ! remote ) {
+    // not yet connected
+    return process.binding('uv').UV_ENOTCONN;
+  }
   out.address = remote.address.hostAddress;
   out.port    = remote.port;
   out.family  = ( remote.address instanceof java.net.Inet6Address ? 'IPv6' : 'IPv4' );
@@ -83,6 +87,10 @@ TCP.prototype.getpeername = function(out) {
 
 TCP.prototype.getsockname = function(out) {
   var local = this._tcp.localAddress;
+  if ( ! local ) {
+    // not yet bound
+    return process.binding('uv').UV_ENOTCONN;
+  }
   out.address = local.address.hostAddress;
   out.port    = local.port;
   out.family  = ( local.address instanceof java.net.Inet6Address ? 'IPv6' : 'IPv4' );
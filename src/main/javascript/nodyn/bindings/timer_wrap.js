@@ -31,6 +31,22 @@ Timer.prototype.stop = function() {
   this._timer.stop();
 }
 
-Timer.now = io.nodyn.timer.TimerWrap.now;
+Timer.prototype.again = function() {
+  this._timer.again();
+}
+
+Timer.prototype.setRepeat = function(repeat) {
+  this._timer.setRepeat(repeat);
+}
+
+Timer.prototype.getRepeat = function() {
+  return this._timer.getRepeat();
+}
+
+var wheel = process._process.timerWheel;
+
+Timer.now = function() {
+  return wheel.updateTime();
+}
 
 module.exports.Timer = Timer;
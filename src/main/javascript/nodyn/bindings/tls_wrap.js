@@ -33,7 +33,7 @@ function _onnewsession(result) {
 SSL.prototype._onData = function(result) {
   if ( this._handshakedone ) {
     var nread = result.result.readableBytes();
-    var b = process.binding('buffer').createBuffer( result.result );
+    var b = process.binding('buffer').createBuffer( result.result, 'socket' );
     this.handle.onread( nread, b );
   } else {
     this._ssl.receive( result.result );
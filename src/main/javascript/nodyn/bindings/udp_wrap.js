@@ -24,7 +24,7 @@ function onRecv(result) {
     if (result.error) {
       throw Error(result.error); // TODO: throw here?
     }
-    var buf = process.binding('buffer').createBuffer(result.result),
+    var buf = process.binding('buffer').createBuffer(result.result, 'socket'),
         remote = this._handle.remoteAddress,
         rinfo = {};
        
@@ -45,5 +45,6 @@ UV.UV_EAGAIN = -4088;
 UV.UV_EMFILE = -4066;
 UV.UV_ENFILE = -4061;
 UV.UV_ENOENT = -4058;
+UV.UV_ENOTCONN = -4053;
 
 module.exports = UV;
\ No newline at end of file
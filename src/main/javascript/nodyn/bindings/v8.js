@@ -19,7 +19,21 @@
 var V8 = {};
 
 V8.getHeapStatistics = function() {
-  return [];
+  var rt = java.lang.Runtime.getRuntime();
+  var external = process._process.bufferAllocator.externalMemory;
+  return {
+    total_heap_size: rt.totalMemory(),
+    used_heap_size: rt.totalMemory() - rt.freeMemory(),
+    heap_size_limit: rt.maxMemory(),
+    external_memory: external.total,
+    external_memory_limit: external.limit,
+    external_memory_by_source: {
+      smalloc: external.get( 'smalloc' ),
+      socket: external.get( 'socket' ),
+      crypto: external.get( 'crypto' ),
+      other: external.get( 'other' )
+    }
+  };
 }
 
 module.exports = V8;
\ No newline at end of file
@@ -68,10 +68,12 @@ Zlib.prototype.writeSync = function(flushFlag, chunk, inOffset, inLen, outBuffer
 };
 
 Zlib.prototype._onError = function(result) {
-  if (typeof this.onerror === 'function')
-    this.onerror(result.error.message, result.result);
-  else
+  if (typeof this.onerror !== 'function')
     console.error("WTF");
+  else if (result.error instanceof java.util.concurrent.RejectedExecutionException)
+    this.onerror("EAGAIN, the cpu threadpool queue is full", process.binding('uv').UV_EAGAIN);
+  else
+    this.onerror(result.error.message, result.result);
 };
 
 Zlib.prototype._onClose = function() {
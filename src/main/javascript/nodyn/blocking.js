@@ -16,8 +16,20 @@
 
 var blocking = new io.nodyn.loop.Blocking(process.EVENT_LOOP);
 
-module.exports.submit = function(task) {
-  blocking.submit( task );
+// lane is one of 'fs' (the default), 'cpu' or 'dns'. If the lane's queue
+// is full, callback is passed an EAGAIN error on a later tick.
+module.exports.submit = function(task, lane, callback) {
+  lane = lane || 'fs';
+  if ( ! callback ) {
+    blocking.submit( lane, task );
+    return;
+  }
+  blocking.submit( lane, task, function() {
+    var err = new Error( "EAGAIN, the " + lane + " threadpool queue is full" );
+    err.code  = 'EAGAIN';
+    err.errno = process.binding('uv').UV_EAGAIN;
+    callback( err );
+  });
 };
 
 module.exports.unblock = function(fn) {
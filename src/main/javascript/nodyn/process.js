@@ -173,6 +173,11 @@ Number.isFinite = isFinite;
     this.env.TEMP = this.env.TMPDIR;
     this.env.TMP = this.env.TMPDIR;
 
+    // when run with --isolates, which copy of the program this is
+    if ( this._process.isolateId >= 0 ) {
+      this.env.NODYN_ISOLATE_ID = String( this._process.isolateId );
+    }
+
     this.arch = this._process.arch();
     this.platform = this._process.platform();
     this.version = io.nodyn.Nodyn.VERSION;
@@ -189,7 +194,8 @@ Number.isFinite = isFinite;
       return {
         heapTotal: rt.totalMemory(),
         heapUsed: rt.totalMemory() - rt.freeMemory(),
-        rss: rt.maxMemory()
+        rss: rt.maxMemory(),
+        external: this._process.bufferAllocator.externalMemory.total
       };
     };
 
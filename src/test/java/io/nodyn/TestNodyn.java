@@ -0,0 +1,69 @@
+package io.nodyn;
+
+import io.nodyn.runtime.NodynConfig;
+import io.nodyn.runtime.Program;
+import org.vertx.java.core.Vertx;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A runtime without a script engine, so wraps and the loop can be
+ * driven from Java tests through a real NodeProcess.
+ *
+ * @author Bob McWhirter
+ */
+public class TestNodyn extends Nodyn {
+
+    private final List<Throwable> errors = new CopyOnWriteArrayList<>();
+
+    public TestNodyn(NodynConfig config, Vertx vertx) {
+        super(config, vertx, false);
+    }
+
+    /**
+     * @return everything passed to {@link #handleThrowable(Throwable)}.
+     */
+    public List<Throwable> getErrors() {
+        return this.errors;
+    }
+
+    @Override
+    public void handleThrowable(Throwable t) {
+        this.errors.add(t);
+    }
+
+    @Override
+    public Object loadBinding(String name) {
+        return null;
+    }
+
+    @Override
+    protected NodeProcess initialize() {
+        return new NodeProcess(this);
+    }
+
+    @Override
+    protected Object runScript(String script) {
+        return null;
+    }
+
+    @Override
+    public Object getGlobalContext() {
+        return null;
+    }
+
+    @Override
+    public Program compile(String source, String fileName, boolean displayErrors) {
+        return null;
+    }
+
+    @Override
+    public void makeContext(Object global) {
+    }
+
+    @Override
+    public boolean isContext(Object global) {
+        return false;
+    }
+}
@@ -0,0 +1,68 @@
+package io.nodyn.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Bob McWhirter
+ */
+public class Base64CodecTest {
+
+    private static final Charset UTF8 = Charset.forName("utf8");
+
+    @Test
+    public void testEncodePadding() {
+        assertEquals( "dA==", encode( "t" ) );
+        assertEquals( "dGE=", encode( "ta" ) );
+        assertEquals( "dGFj", encode( "tac" ) );
+        assertEquals( "dGFjb3M=", encode( "tacos" ) );
+    }
+
+    @Test
+    public void testEncodeDirect() {
+        ByteBuf buf = Unpooled.directBuffer();
+        buf.writeBytes( "tacos".getBytes( UTF8 ) );
+        assertEquals( "dGFjb3M=", Base64Codec.encode( buf, 0, 5 ) );
+    }
+
+    @Test
+    public void testEncodeUrlSafe() {
+        ByteBuf buf = Unpooled.wrappedBuffer( new byte[] { (byte) 0xFB, (byte) 0xFF } );
+        assertEquals( "+/8=", Base64Codec.encode( buf, 0, 2 ) );
+        assertEquals( "-_8", Base64Codec.encode( buf, 0, 2, true ) );
+    }
+
+    @Test
+    public void testDecode() {
+        assertEquals( "tacos", decode( "dGFjb3M=", 10 ) );
+    }
+
+    @Test
+    public void testDecodeWhitespaceAndUrlSafe() {
+        ByteBuf buf = Unpooled.buffer( 2 );
+        assertEquals( 2, Base64Codec.decode( "-_\r\n8", buf, 0, 2 ) );
+        assertEquals( (byte) 0xFB, buf.getByte( 0 ) );
+        assertEquals( (byte) 0xFF, buf.getByte( 1 ) );
+    }
+
+    @Test
+    public void testDecodeStopsAtMax() {
+        assertEquals( "tac", decode( "dGFjb3M=", 3 ) );
+    }
+
+    protected String encode(String str) {
+        ByteBuf buf = Unpooled.copiedBuffer( str, UTF8 );
+        return Base64Codec.encode( buf, 0, buf.readableBytes() );
+    }
+
+    protected String decode(String str, int max) {
+        ByteBuf buf = Unpooled.buffer( max );
+        int len = Base64Codec.decode( str, buf, 0, max );
+        return buf.toString( 0, len, UTF8 );
+    }
+}
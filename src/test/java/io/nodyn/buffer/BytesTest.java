@@ -0,0 +1,41 @@
+package io.nodyn.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Bob McWhirter
+ */
+public class BytesTest {
+
+    @Test
+    public void testMoveOverlappingDirectSlices() {
+        moveOverlapping( 64 );
+    }
+
+    @Test
+    public void testMoveOverlappingBeyondScratch() {
+        moveOverlapping( Scratch.SIZE * 2 );
+    }
+
+    private void moveOverlapping(int len) {
+        ByteBuf root = PooledByteBufAllocator.DEFAULT.directBuffer( len + 8 );
+        for (int i = 0; i < len + 8; ++i) {
+            root.writeByte( i );
+        }
+        // two views of one pooled root, as node's JS-side pool hands out
+        ByteBuf src = root.slice( 0, len );
+        ByteBuf target = root.slice( 8, len );
+
+        Bytes.move( src, 0, target, 0, len );
+
+        for (int i = 0; i < len; ++i) {
+            assertEquals( (byte) i, root.getByte( i + 8 ) );
+        }
+        assertEquals( 1, root.refCnt() );
+        root.release();
+    }
+}
@@ -0,0 +1,54 @@
+package io.nodyn.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Bob McWhirter
+ */
+public class DecodeCacheTest {
+
+    private static final Charset UTF8 = Charset.forName("utf8");
+    private static final Charset ASCII = Charset.forName("us-ascii");
+
+    @Test
+    public void testRepeatedDecodeIsShared() {
+        DecodeCache cache = new DecodeCache( 100 );
+        assertEquals( 128, cache.getSize() );
+
+        ByteBuf buf = Unpooled.copiedBuffer( "Content-Type: Content-Type", UTF8 );
+        String first = cache.decode( buf, 0, 12, UTF8 );
+        String second = cache.decode( buf, 14, 12, UTF8 );
+        assertEquals( "Content-Type", first );
+        assertSame( first, second );
+        assertEquals( 1, cache.getHits() );
+        assertEquals( 1, cache.getMisses() );
+    }
+
+    @Test
+    public void testCharsetIsPartOfKey() {
+        DecodeCache cache = new DecodeCache( 16 );
+        ByteBuf buf = Unpooled.copiedBuffer( "café", UTF8 );
+        assertEquals( "café", cache.decode( buf, 0, buf.readableBytes(), UTF8 ) );
+        assertFalse( "café".equals( cache.decode( buf, 0, buf.readableBytes(), ASCII ) ) );
+        assertEquals( 0, cache.getHits() );
+    }
+
+    @Test
+    public void testLongSlicesBypassCache() {
+        DecodeCache cache = new DecodeCache( 16 );
+        StringBuilder str = new StringBuilder();
+        for (int i = 0; i <= DecodeCache.MAX_LENGTH; ++i) {
+            str.append( 'x' );
+        }
+        ByteBuf buf = Unpooled.directBuffer();
+        buf.writeBytes( str.toString().getBytes( UTF8 ) );
+        assertEquals( str.toString(), cache.decode( buf, 0, buf.readableBytes(), UTF8 ) );
+        assertEquals( 0, cache.getHits() + cache.getMisses() );
+    }
+}
@@ -2,11 +2,15 @@ package io.nodyn.http;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.nodyn.Callback;
+import io.nodyn.CallbackResult;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
 
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
 
 
 /**
@@ -179,6 +183,249 @@ public class HTTPParserTest {
         assertEquals("taco", parser.getHeaders()[3]);
     }
 
+    @Test
+    public void testMatchMethod() {
+        for (int i = 0; i < HTTPParser.METHODS.length; ++i) {
+            ByteBuf method = buffer(HTTPParser.METHODS[i]);
+            assertEquals(Integer.valueOf(i), HTTPParser.matchMethod(method, 0, method.writerIndex()));
+        }
+        ByteBuf bogus = buffer("GETS");
+        assertNull(HTTPParser.matchMethod(bogus, 0, 4));
+        assertNull(HTTPParser.matchMethod(bogus, 0, 2));
+        assertNull(HTTPParser.matchMethod(buffer("get"), 0, 3));
+    }
+
+    @Test
+    public void readHeadersAnalyzedFromBytes() {
+        HTTPParser parser = new HTTPParser();
+        parser.reinitialize(HTTPParser.REQUEST);
+        parser.addBuffer(buffer("Content-LENGTH:\t 42 \r\nTransfer-Encoding: gzip, Chunked\r\nConnection: Close\r\n\r\n"));
+        assertEquals(0, parser.readHeaders());
+
+        assertEquals("Content-LENGTH", parser.getHeaders()[0]);
+        assertEquals("42", parser.getHeaders()[1]);
+        assertEquals("gzip, Chunked", parser.getHeaders()[3]);
+        assertEquals(6, parser.getHeaders().length);
+    }
+
+    @Test
+    public void readHeadersSharesKnownTokens() {
+        HTTPParser parser = new HTTPParser();
+        parser.reinitialize(HTTPParser.REQUEST);
+        parser.addBuffer(buffer("Host: example.com\r\nconnection: keep-alive\r\nX-Custom: keep-alive\r\nUPGRADE: websocket\r\n\r\n"));
+        assertEquals(0, parser.readHeaders());
+
+        String[] headers = parser.getHeaders();
+        assertSame("Host", headers[0]);
+        assertEquals("example.com", headers[1]);
+        assertSame("connection", headers[2]);
+        assertSame("keep-alive", headers[3]);
+        assertEquals("X-Custom", headers[4]);
+        assertSame("keep-alive", headers[5]);
+        // unusual case is decoded, but still analyzed
+        assertEquals("UPGRADE", headers[6]);
+        assertSame("websocket", headers[7]);
+        assertTrue(parser.getUpgrade());
+    }
+
+    @Test
+    public void readHeadersInvalidContentLength() {
+        HTTPParser parser = new HTTPParser();
+        parser.addBuffer(buffer("Content-Length: 4x\r\n\r\n"));
+        assertEquals(-1, parser.readHeaders());
+        assertEquals(HTTPParser.Error.INVALID_CONTENT_LENGTH, parser.getError());
+    }
+
+    @Test
+    public void testChunkedBody() {
+        HTTPParser parser = new HTTPParser();
+        parser.reinitialize(HTTPParser.REQUEST);
+        final StringBuilder body = new StringBuilder();
+        parser.on("body", new Callback() {
+            public Object call(CallbackResult result) {
+                body.append(((ByteBuf) result.getResult()).toString(UTF8));
+                return null;
+            }
+        });
+
+        ByteBuf request = buffer("POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n" +
+                "5;name=value\r\nhello\r\nA\r\n, world!!!\r\n0\r\n\r\n");
+        assertEquals(request.readableBytes(), parser.execute(request));
+        assertNull(parser.getError());
+        assertEquals("hello, world!!!", body.toString());
+    }
+
+    @Test
+    public void testReadStatusLineWithoutReason() {
+        HTTPParser parser = new HTTPParser();
+        parser.addBuffer(buffer("HTTP/1.0 204\r\n"));
+        assertTrue(parser.readStatusLine());
+        assertEquals(0, parser.getVersionMinor());
+        assertEquals(204, parser.getStatusCode());
+        assertEquals("", parser.getStatusMessage());
+    }
+
+    @Test
+    public void testBodySharesIncomingBuffers() {
+        HTTPParser parser = new HTTPParser();
+        parser.reinitialize(HTTPParser.REQUEST);
+        final List<ByteBuf> bodies = new ArrayList<>();
+        parser.on("body", new Callback() {
+            public Object call(CallbackResult result) {
+                bodies.add((ByteBuf) result.getResult());
+                return null;
+            }
+        });
+
+        ByteBuf first = buffer("POST / HTTP/1.1\r\nContent-Length: 10\r\n\r\nhello");
+        ByteBuf second = buffer("world");
+        assertEquals(first.readableBytes(), parser.execute(first));
+        assertEquals(5, parser.execute(second));
+
+        assertEquals(2, bodies.size());
+        assertEquals("hello", bodies.get(0).toString(UTF8));
+        assertEquals("world", bodies.get(1).toString(UTF8));
+
+        // written through to the socket buffers, so not copies
+        second.setByte(0, 'W');
+        assertEquals("World", bodies.get(1).toString(UTF8));
+
+        // released by the parser once parsed past
+        assertEquals(1, first.refCnt());
+        assertEquals(1, second.refCnt());
+    }
+
+    @Test
+    public void testPipelinedRequests() {
+        HTTPParser parser = new HTTPParser();
+        parser.reinitialize(HTTPParser.REQUEST);
+        final List<String> urls = new ArrayList<>();
+        final HTTPParser target = parser;
+        parser.on("headersComplete", new Callback() {
+            public Object call(CallbackResult result) {
+                urls.add(target.getUrl());
+                return null;
+            }
+        });
+
+        ByteBuf requests = buffer("GET /one HTTP/1.1\r\nHost: a\r\n\r\n" +
+                "POST /two HTTP/1.1\r\nContent-Length: 3\r\n\r\nabc" +
+                "GET /three HTTP/1.1\r\n\r\nGET /fo");
+        // all but the incomplete request line
+        assertEquals(requests.readableBytes() - 7, parser.execute(requests));
+        assertEquals(3, urls.size());
+        assertEquals("/one", urls.get(0));
+        assertEquals("/two", urls.get(1));
+        assertEquals("/three", urls.get(2));
+
+        parser.execute(buffer("ur HTTP/1.1\r\n\r\n"));
+        assertEquals(4, urls.size());
+        assertEquals("/four", urls.get(3));
+    }
+
+    @Test
+    public void testBatchedRequests() {
+        HTTPParser parser = new HTTPParser();
+        parser.reinitialize(HTTPParser.REQUEST);
+        parser.setBatching(true);
+        final List<HTTPParser.Event[]> batches = new ArrayList<>();
+        parser.on("batch", new Callback() {
+            public Object call(CallbackResult result) {
+                batches.add((HTTPParser.Event[]) result.getResult());
+                return null;
+            }
+        });
+
+        parser.execute(buffer("GET /one HTTP/1.1\r\n\r\nPOST /two HTTP/1.0\r\nContent-Length: 3\r\nConnection: keep-alive\r\n\r\nabc"));
+        assertEquals(1, batches.size());
+
+        HTTPParser.Event[] events = batches.get(0);
+        assertEquals(5, events.length);
+        assertEquals("headersComplete", events[0].getName());
+        assertEquals("/one", ((HTTPParser.Message) events[0].getResult()).getUrl());
+        assertEquals("messageComplete", events[1].getName());
+        assertEquals("headersComplete", events[2].getName());
+        HTTPParser.Message two = (HTTPParser.Message) events[2].getResult();
+        assertEquals("/two", two.getUrl());
+        assertEquals("POST", HTTPParser.METHODS[two.getMethod()]);
+        assertEquals("Content-Length", two.getHeaders()[0]);
+        assertEquals("body", events[3].getName());
+        assertEquals("abc", ((ByteBuf) events[3].getResult()).toString(UTF8));
+        assertEquals("messageComplete", events[4].getName());
+    }
+
+    @Test
+    public void testPauseAtMessageBoundary() {
+        final HTTPParser parser = new HTTPParser();
+        parser.reinitialize(HTTPParser.REQUEST);
+        final List<String> urls = new ArrayList<>();
+        parser.on("headersComplete", new Callback() {
+            public Object call(CallbackResult result) {
+                urls.add(parser.getUrl());
+                return null;
+            }
+        });
+        parser.on("messageComplete", new Callback() {
+            public Object call(CallbackResult result) {
+                parser.pause();
+                return null;
+            }
+        });
+
+        ByteBuf requests = buffer("GET /one HTTP/1.1\r\n\r\nGET /two HTTP/1.1\r\n\r\n");
+        assertEquals(21, parser.execute(requests));
+        assertEquals(1, urls.size());
+        assertTrue(parser.isPaused());
+
+        // buffered until resumed
+        assertEquals(0, parser.execute(buffer("GET /three HTTP/1.1\r\n\r\n")));
+        assertEquals(1, urls.size());
+
+        assertEquals(21, parser.resume());
+        assertEquals(2, urls.size());
+        assertEquals("/two", urls.get(1));
+
+        assertEquals(23, parser.resume());
+        assertEquals("/three", urls.get(2));
+    }
+
+    @Test
+    public void testResumeIsNotEof() {
+        HTTPParser parser = new HTTPParser();
+        parser.reinitialize(HTTPParser.RESPONSE);
+        final List<String> completed = new ArrayList<>();
+        parser.on("messageComplete", new Callback() {
+            public Object call(CallbackResult result) {
+                completed.add("messageComplete");
+                return null;
+            }
+        });
+
+        parser.pause();
+        assertEquals(0, parser.resume());
+        assertTrue(completed.isEmpty());
+
+        // its body is read until EOF, so only an empty execute() ends it
+        ByteBuf response = buffer("HTTP/1.1 200 OK\r\n\r\n");
+        assertEquals(response.readableBytes(), parser.execute(response));
+        parser.pause();
+        assertEquals(0, parser.resume());
+        assertTrue(completed.isEmpty());
+
+        parser.execute(Unpooled.EMPTY_BUFFER);
+        assertEquals(1, completed.size());
+    }
+
+    @Test
+    public void testUpgradeStopsPipelining() {
+        HTTPParser parser = new HTTPParser();
+        parser.reinitialize(HTTPParser.REQUEST);
+        ByteBuf request = Unpooled.buffer().writeBytes("GET / HTTP/1.1\r\nConnection: Upgrade\r\nUpgrade: websocket\r\n\r\n".getBytes(UTF8));
+        int headLength = request.readableBytes();
+        request.writeBytes("GET /not-http".getBytes(UTF8));
+        // the rest is left for the new protocol
+        assertEquals(headLength, parser.execute(request));
+    }
 
     protected ByteBuf buffer(String str) {
         return Unpooled.copiedBuffer(str.getBytes(UTF8));
@@ -0,0 +1,97 @@
+package io.nodyn.http;
+
+import io.netty.buffer.ByteBuf;
+import io.nodyn.smalloc.AllocatorType;
+import io.nodyn.smalloc.BufferAllocator;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.Charset;
+
+/**
+ * @author Bob McWhirter
+ */
+public class HTTPSerializerTest {
+
+    public static Charset UTF8 = Charset.forName("utf8");
+
+    private final HTTPSerializer serializer = new HTTPSerializer( new BufferAllocator( AllocatorType.POOLED_HEAP ) );
+
+    @Test
+    public void testDate() {
+        String date = HTTPSerializer.getDate();
+        assertTrue( date, date.matches( "[A-Z][a-z]{2}, \\d\\d [A-Z][a-z]{2} \\d{4} \\d\\d:\\d\\d:\\d\\d GMT" ) );
+    }
+
+    @Test
+    public void testStatusLine() {
+        assertEquals( "HTTP/1.1 200 OK\r\n", HTTPSerializer.statusLine( 200 ) );
+        assertEquals( "HTTP/1.1 404 Not Found\r\n", HTTPSerializer.statusLine( 404 ) );
+        assertNull( HTTPSerializer.statusLine( 299 ) );
+        assertNull( HTTPSerializer.statusLine( 1000 ) );
+    }
+
+    @Test
+    public void testHead() {
+        String header = "HTTP/1.1 200 OK\r\nContent-Length: 7\r\n\r\n";
+        ByteBuf buf = this.serializer.head( header, 200, "h\u00e9llo", null );
+        assertEquals( header + "h\u00e9llo", buf.toString( UTF8 ) );
+        assertEquals( buf.capacity(), buf.readableBytes() );
+        buf.release();
+
+        // a reason of its own
+        header = "HTTP/1.1 200 Fine\r\n\r\n";
+        buf = this.serializer.head( header, 200, "", "utf8" );
+        assertEquals( header, buf.toString( UTF8 ) );
+        buf.release();
+
+        assertNull( this.serializer.head( header, 200, "00", "hex" ) );
+    }
+
+    @Test
+    public void testHeadInOneByteAndUcs2() {
+        String header = "HTTP/1.1 404 Not Found\r\n\r\n";
+        ByteBuf buf = this.serializer.head( header, 404, "caf\u00e9", "binary" );
+        assertEquals( header + "caf\u00e9", buf.toString( Charset.forName( "iso-8859-1" ) ) );
+        buf.release();
+
+        // the cached status line is not ucs2, so the whole head is encoded
+        buf = this.serializer.head( header, 404, "x", "ucs2" );
+        assertEquals( header + "x", buf.toString( Charset.forName( "utf-16le" ) ) );
+        assertEquals( buf.capacity(), buf.readableBytes() );
+        buf.release();
+    }
+
+    @Test
+    public void testHeadAndChunk() {
+        String header = "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n";
+        ByteBuf buf = this.serializer.headAndChunk( header, 200, "h\u00e9llo", "utf8" );
+        assertEquals( header + "6\r\nh\u00e9llo\r\n", buf.toString( UTF8 ) );
+        assertEquals( buf.capacity(), buf.readableBytes() );
+        buf.release();
+    }
+
+    @Test
+    public void testChunk() {
+        ByteBuf buf = this.serializer.chunk( "hello", "ascii" );
+        assertEquals( "5\r\nhello\r\n", buf.toString( UTF8 ) );
+        buf.release();
+
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < 300; ++i) {
+            data.append( 'x' );
+        }
+        buf = this.serializer.chunk( data.toString(), "UTF-8" );
+        assertEquals( "12c\r\n" + data + "\r\n", buf.toString( UTF8 ) );
+        buf.release();
+    }
+
+    @Test
+    public void testChunkSize() {
+        assertEquals( 3, HTTPSerializer.chunkSizeLength( 0 ) );
+        assertEquals( 3, HTTPSerializer.chunkSizeLength( 15 ) );
+        assertEquals( 4, HTTPSerializer.chunkSizeLength( 16 ) );
+        assertEquals( 10, HTTPSerializer.chunkSizeLength( Integer.MAX_VALUE ) );
+    }
+}
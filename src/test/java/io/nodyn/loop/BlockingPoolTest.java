@@ -0,0 +1,120 @@
+package io.nodyn.loop;
+
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Bob McWhirter
+ */
+public class BlockingPoolTest {
+
+    @Test
+    public void testFullQueueAborts() throws InterruptedException {
+        BlockingPool pool = new BlockingPool( 1, 1, BlockingPool.Rejection.ABORT );
+        CountDownLatch release = new CountDownLatch( 1 );
+        try {
+            pool.submit( BlockingLane.FS, await( release ) );
+            waitForActive( pool, BlockingLane.FS );
+            pool.submit( BlockingLane.FS, await( release ) );
+            assertEquals( 1, pool.getQueueDepth( BlockingLane.FS ) );
+            try {
+                pool.submit( BlockingLane.FS, await( release ) );
+                fail( "expected rejection" );
+            } catch (RejectedExecutionException e) {
+                // expected
+            }
+        } finally {
+            release.countDown();
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testFullQueueRunsOnCaller() throws InterruptedException {
+        BlockingPool pool = new BlockingPool( 1, 1, BlockingPool.Rejection.CALLER_RUNS );
+        CountDownLatch release = new CountDownLatch( 1 );
+        try {
+            pool.submit( BlockingLane.CPU, await( release ) );
+            waitForActive( pool, BlockingLane.CPU );
+            pool.submit( BlockingLane.CPU, await( release ) );
+            final AtomicReference<Thread> ranOn = new AtomicReference<>();
+            pool.submit( BlockingLane.CPU, new Runnable() {
+                public void run() {
+                    ranOn.set( Thread.currentThread() );
+                }
+            } );
+            assertSame( Thread.currentThread(), ranOn.get() );
+        } finally {
+            release.countDown();
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testLanesAreIndependent() throws InterruptedException {
+        BlockingPool pool = new BlockingPool( 1, 1, BlockingPool.Rejection.ABORT );
+        CountDownLatch release = new CountDownLatch( 1 );
+        try {
+            pool.submit( BlockingLane.CPU, await( release ) );
+            waitForActive( pool, BlockingLane.CPU );
+            final CountDownLatch ran = new CountDownLatch( 1 );
+            pool.submit( BlockingLane.FS, new Runnable() {
+                public void run() {
+                    ran.countDown();
+                }
+            } );
+            assertTrue( ran.await( 5, TimeUnit.SECONDS ) );
+        } finally {
+            release.countDown();
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testLoopStatsReportLanes() throws InterruptedException {
+        NioEventLoopGroup group = new NioEventLoopGroup( 1 );
+        BlockingPool pool = new BlockingPool( 1, 1, BlockingPool.Rejection.ABORT );
+        EventLoop loop = new EventLoop( group, false, LoopMode.EXECUTOR, pool );
+        CountDownLatch release = new CountDownLatch( 1 );
+        try {
+            loop.submitBlockingTask( BlockingLane.CPU, await( release ) );
+            waitForActive( pool, BlockingLane.CPU );
+            loop.submitBlockingTask( BlockingLane.CPU, await( release ) );
+
+            LoopStats stats = loop.getStats();
+            assertEquals( 1, stats.blockingActiveCount( "cpu" ) );
+            assertEquals( 1, stats.blockingQueueDepth( "cpu" ) );
+            assertEquals( 0, stats.blockingQueueDepth( "fs" ) );
+            assertEquals( 1, stats.blockingPoolSize( "cpu" ) );
+        } finally {
+            release.countDown();
+            loop.shutdown();
+            group.shutdownGracefully();
+        }
+    }
+
+    private static Runnable await(final CountDownLatch latch) {
+        return new Runnable() {
+            public void run() {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    // done
+                }
+            }
+        };
+    }
+
+    private static void waitForActive(BlockingPool pool, BlockingLane lane) throws InterruptedException {
+        while (pool.getActiveCount( lane ) == 0) {
+            Thread.sleep( 1 );
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package io.nodyn.loop;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.nodyn.Callback;
+import io.nodyn.CallbackResult;
+import io.nodyn.NodeProcess;
+import io.nodyn.TestNodyn;
+import io.nodyn.dns.GetAddrInfoWrap;
+import io.nodyn.runtime.NodynConfig;
+import io.nodyn.zlib.NodeZlib;
+import org.junit.Test;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.VertxFactory;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Bob McWhirter
+ */
+public class BlockingTest {
+
+    @Test
+    public void testRejectionIsDeliveredOnTheLoop() throws Exception {
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        BlockingPool pool = new BlockingPool( 1, 1, BlockingPool.Rejection.ABORT );
+        final EventLoop loop = new EventLoop( group, false, LoopMode.EXECUTOR, pool );
+        Blocking blocking = new Blocking( loop );
+
+        final CountDownLatch release = new CountDownLatch( 1 );
+        final CountDownLatch rejected = new CountDownLatch( 1 );
+        final AtomicReference<LoopPhase> phase = new AtomicReference<>();
+        final Runnable waitForRelease = new Runnable() {
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    // done
+                }
+            }
+        };
+        final Runnable neverRuns = new Runnable() {
+            public void run() {
+                fail( "a rejected task should not run" );
+            }
+        };
+
+        try {
+            blocking.submit( "cpu", waitForRelease, neverRuns );
+            while (pool.getActiveCount( BlockingLane.CPU ) == 0) {
+                Thread.sleep( 1 );
+            }
+            blocking.submit( "cpu", waitForRelease, neverRuns );
+
+            // the queue is full, but this does not throw
+            blocking.submit( "cpu", neverRuns, new Runnable() {
+                public void run() {
+                    phase.set( loop.getPhase() );
+                    rejected.countDown();
+                }
+            } );
+            assertTrue( rejected.await( 5, TimeUnit.SECONDS ) );
+            assertEquals( LoopPhase.POLL, phase.get() );
+        } finally {
+            release.countDown();
+        }
+        loop.await();
+        group.shutdownGracefully();
+    }
+
+    @Test
+    public void testZlibAndDnsRejectionsReachTheirCallbacks() throws Exception {
+        NodynConfig config = new NodynConfig();
+        config.setThreadpoolSize( 1 );
+        config.setThreadpoolQueueSize( 1 );
+        Vertx vertx = VertxFactory.newVertx();
+        TestNodyn nodyn = new TestNodyn( config, vertx );
+        NodeProcess process = new NodeProcess( nodyn );
+        EventLoop loop = nodyn.getEventLoop();
+        // keeps the loop alive while the lanes are full
+        RefHandle handle = loop.newHandle( "test" );
+
+        final CountDownLatch release = new CountDownLatch( 1 );
+        final Runnable waitForRelease = new Runnable() {
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    // done
+                }
+            }
+        };
+
+        try {
+            for (BlockingLane lane : new BlockingLane[] { BlockingLane.CPU, BlockingLane.DNS }) {
+                loop.submitBlockingTask( lane, waitForRelease );
+                while (loop.getBlockingPool().getActiveCount( lane ) == 0) {
+                    Thread.sleep( 1 );
+                }
+                loop.submitBlockingTask( lane, waitForRelease );
+            }
+
+            final AtomicReference<Throwable> zlibError = new AtomicReference<>();
+            final AtomicReference<Throwable> dnsError = new AtomicReference<>();
+            final CountDownLatch completed = new CountDownLatch( 2 );
+
+            NodeZlib zlib = new NodeZlib( process, 1 );
+            zlib.on( "error", new Callback() {
+                public Object call(CallbackResult result) {
+                    zlibError.set( result.getError() );
+                    completed.countDown();
+                    return null;
+                }
+            } );
+            // does not throw, although the cpu lane is full
+            zlib.write( 0, new byte[] { 1 }, 0, 1, Unpooled.buffer( 16 ), 0, 16 );
+
+            GetAddrInfoWrap lookup = new GetAddrInfoWrap( process, "localhost" );
+            lookup.on( "complete", new Callback() {
+                public Object call(CallbackResult result) {
+                    dnsError.set( result.getError() );
+                    completed.countDown();
+                    return null;
+                }
+            } );
+            lookup.start();
+
+            assertTrue( completed.await( 5, TimeUnit.SECONDS ) );
+            assertTrue( zlibError.get() instanceof RejectedExecutionException );
+            assertTrue( dnsError.get() instanceof RejectedExecutionException );
+            assertTrue( nodyn.getErrors().isEmpty() );
+        } finally {
+            release.countDown();
+            handle.unref();
+            vertx.stop();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package io.nodyn.loop;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Bob McWhirter
+ */
+public class CheckPhaseTest {
+
+    @Test
+    public void testRunsAfterPendingTasks() {
+        Queue queue = new Queue();
+        CheckPhase phase = new CheckPhase( queue );
+        final List<String> log = new ArrayList<>();
+
+        queue.execute( record( log, "io-1" ) );
+        handle( phase, log, "check" ).start();
+        queue.execute( record( log, "io-2" ) );
+        queue.runPending();
+
+        assertEquals( "[io-1, check, io-2]", log.toString() );
+    }
+
+    @Test
+    public void testOneSubmissionPerIteration() {
+        Queue queue = new Queue();
+        CheckPhase phase = new CheckPhase( queue );
+        final List<String> log = new ArrayList<>();
+
+        ImmediateCheckHandle a = handle( phase, log, "a" );
+        ImmediateCheckHandle b = handle( phase, log, "b" );
+        a.start();
+        b.start();
+        a.start();
+        assertEquals( 1, queue.tasks.size() );
+
+        queue.runPending();
+        assertEquals( "[a, b]", log.toString() );
+        assertEquals( 1, phase.getIterations() );
+
+        // still active, so the next iteration is already queued
+        assertEquals( 1, queue.tasks.size() );
+        a.stop();
+        b.stop();
+        queue.runPending();
+        assertEquals( "[a, b]", log.toString() );
+        assertTrue( queue.tasks.isEmpty() );
+    }
+
+    @Test
+    public void testStartedDuringPhaseRunsNextIteration() {
+        Queue queue = new Queue();
+        final CheckPhase phase = new CheckPhase( queue );
+        final List<String> log = new ArrayList<>();
+
+        final ImmediateCheckHandle late = handle( phase, log, "late" );
+        final ImmediateCheckHandle first = new ImmediateCheckHandle( null, phase, new Runnable() {
+            public void run() {
+                log.add( "first" );
+                late.start();
+            }
+        } );
+        first.start();
+        queue.runPending();
+        first.stop();
+        assertEquals( "[first]", log.toString() );
+
+        queue.runPending();
+        assertEquals( "[first, late]", log.toString() );
+        assertEquals( 2, phase.getIterations() );
+    }
+
+    private static ImmediateCheckHandle handle(CheckPhase phase, List<String> log, String name) {
+        return new ImmediateCheckHandle( null, phase, record( log, name ) );
+    }
+
+    private static Runnable record(final List<String> log, final String name) {
+        return new Runnable() {
+            public void run() {
+                log.add( name );
+            }
+        };
+    }
+
+    private static class Queue implements Executor {
+
+        final LinkedList<Runnable> tasks = new LinkedList<>();
+
+        public void execute(Runnable command) {
+            this.tasks.add( command );
+        }
+
+        void runPending() {
+            int pending = this.tasks.size();
+            for (int i = 0; i < pending; ++i) {
+                this.tasks.removeFirst().run();
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package io.nodyn.loop;
+
+import io.nodyn.Callback;
+import io.nodyn.CallbackResult;
+import io.nodyn.NodeProcess;
+import io.nodyn.TestNodyn;
+import io.nodyn.async.AsyncWrap;
+import io.nodyn.async.DispatchQueue;
+import io.nodyn.runtime.NodynConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.VertxFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Bob McWhirter
+ */
+public class DispatchQueueTest {
+
+    private Vertx vertx;
+    private TestNodyn nodyn;
+    private NodeProcess process;
+    private EventLoop loop;
+    private RefHandle handle;
+
+    // how many events had been delivered at each nextTick
+    private final List<Integer> ticks = Collections.synchronizedList(new ArrayList<Integer>());
+    private final List<Integer> delivered = Collections.synchronizedList(new ArrayList<Integer>());
+    private CountDownLatch done;
+
+    @Before
+    public void setUp() {
+        this.vertx = VertxFactory.newVertx();
+        this.nodyn = new TestNodyn(new NodynConfig(), this.vertx);
+        this.process = new NodeProcess(this.nodyn);
+        this.loop = this.nodyn.getEventLoop();
+        // as the runtime does, so that a drained loop calls back for nextTick
+        this.loop.setProcess(this.process);
+        // keeps the loop alive between tasks
+        this.handle = this.loop.newHandle("test");
+        this.process.setupNextTick(new Runnable() {
+            public void run() {
+                ticks.add(delivered.size());
+            }
+        });
+        this.ticks.clear();
+    }
+
+    @After
+    public void tearDown() {
+        this.handle.unref();
+        this.vertx.stop();
+    }
+
+    @Test
+    public void testDeliversPendingEventsInOneTask() throws Exception {
+        AsyncWrap wrap = wrap(10, null);
+
+        CountDownLatch release = blockLoop();
+        for (int i = 0; i < 10; ++i) {
+            wrap.emit("data", CallbackResult.createSuccess(i));
+        }
+        release.countDown();
+        sync();
+
+        assertEquals(10, this.delivered.size());
+        for (int i = 0; i < 10; ++i) {
+            assertEquals(i, this.delivered.get(i).intValue());
+        }
+        assertEquals(1, runs("dispatch"));
+        assertEquals(10, this.loop.getStats().getRunTime("AsyncWrap#data").getCount());
+        assertTrue(this.nodyn.getErrors().isEmpty());
+    }
+
+    @Test
+    public void testNextTickOncePerBatch() throws Exception {
+        AsyncWrap wrap = wrap(10, null);
+
+        CountDownLatch release = blockLoop();
+        for (int i = 0; i < 10; ++i) {
+            wrap.emit("data", CallbackResult.createSuccess(i));
+        }
+        release.countDown();
+        assertTrue(this.done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 500 && this.ticks.isEmpty(); ++i) {
+            Thread.sleep(10);
+        }
+
+        // none after the blocking task, with the batch still queued, nor between events
+        assertEquals(Collections.singletonList(10), this.ticks);
+    }
+
+    @Test
+    public void testReschedulesPastMaxBatch() throws Exception {
+        int count = DispatchQueue.MAX_BATCH + 10;
+        AsyncWrap wrap = wrap(count, null);
+
+        CountDownLatch release = blockLoop();
+        for (int i = 0; i < count; ++i) {
+            wrap.emit("data", CallbackResult.createSuccess(i));
+        }
+        release.countDown();
+        sync();
+
+        assertEquals(count, this.delivered.size());
+        assertEquals(count - 1, this.delivered.get(count - 1).intValue());
+        assertEquals(2, runs("dispatch"));
+    }
+
+    @Test
+    public void testThrowingCallbackDoesNotEndTheBatch() throws Exception {
+        AsyncWrap wrap = wrap(6, 3);
+
+        CountDownLatch release = blockLoop();
+        for (int i = 0; i < 6; ++i) {
+            wrap.emit("data", CallbackResult.createSuccess(i));
+        }
+        release.countDown();
+        sync();
+
+        assertEquals(6, this.delivered.size());
+        assertEquals(1, runs("dispatch"));
+        assertEquals(1, this.nodyn.getErrors().size());
+        assertEquals("3", this.nodyn.getErrors().get(0).getMessage());
+    }
+
+    /**
+     * @param expected how many events {@link #sync()} waits for.
+     * @param throwOn the event to throw from, once recorded, or null.
+     */
+    private AsyncWrap wrap(int expected, final Integer throwOn) {
+        this.done = new CountDownLatch(expected);
+        AsyncWrap wrap = new AsyncWrap(this.process);
+        wrap.on("data", new Callback() {
+            public Object call(CallbackResult result) {
+                Integer value = (Integer) result.getResult();
+                delivered.add(value);
+                done.countDown();
+                if (value.equals(throwOn)) {
+                    throw new IllegalStateException(value.toString());
+                }
+                return null;
+            }
+        });
+        return wrap;
+    }
+
+    /**
+     * Occupy the loop thread, so that events queue up behind it.
+     */
+    private CountDownLatch blockLoop() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        this.loop.submitUserTask(new Runnable() {
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    // done
+                }
+            }
+        }, "block");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return release;
+    }
+
+    /**
+     * Wait for the expected events, and for the task delivering the last to finish.
+     */
+    private void sync() throws Exception {
+        assertTrue(this.done.await(5, TimeUnit.SECONDS));
+        // queued behind it, and run once it is recorded
+        this.loop.submitUserTask(new Runnable() {
+            public void run() {
+            }
+        }, "sync").get(5, TimeUnit.SECONDS);
+    }
+
+    private long runs(String name) {
+        Histogram histogram = this.loop.getStats().getRunTime(name);
+        return histogram == null ? 0 : histogram.getCount();
+    }
+}
@@ -0,0 +1,94 @@
+package io.nodyn.loop;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Bob McWhirter
+ */
+public class EventLoopTest {
+
+    @Test
+    public void testBindInlineOnPinnedLoop() throws Exception {
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        final EventLoop loop = new EventLoop(group, false, LoopMode.PINNED);
+        final List<ChannelFuture> futures = new ArrayList<>();
+
+        loop.getEventLoopGroup().submit(new Runnable() {
+            public void run() {
+                assertTrue( loop.inPinnedLoop() );
+
+                ServerBootstrap server = new ServerBootstrap();
+                server.group(loop.getEventLoopGroup());
+                server.channel(NioServerSocketChannel.class);
+                server.childHandler(new ChannelInboundHandlerAdapter());
+                futures.add( loop.bind( server, new InetSocketAddress( "127.0.0.1", 0 ) ) );
+
+                Bootstrap udp = new Bootstrap();
+                udp.group(loop.getEventLoopGroup());
+                udp.channel(NioDatagramChannel.class);
+                udp.handler(new ChannelInboundHandlerAdapter());
+                futures.add( loop.bind( udp, new InetSocketAddress( "127.0.0.1", 0 ) ) );
+
+                // already in use
+                futures.add( loop.bind( server, futures.get( 0 ).channel().localAddress() ) );
+
+                // done before returning to the loop, so never waited for
+                for (ChannelFuture each : futures) {
+                    assertTrue( each.isDone() );
+                }
+            }
+        }).sync();
+
+        assertTrue( futures.get( 0 ).isSuccess() );
+        assertTrue( ((InetSocketAddress) futures.get( 0 ).channel().localAddress()).getPort() > 0 );
+        assertTrue( futures.get( 1 ).isSuccess() );
+        assertNotNull( futures.get( 2 ).cause() );
+
+        assertFalse( loop.inPinnedLoop() );
+        for (ChannelFuture each : futures) {
+            each.channel().close().sync();
+        }
+        group.shutdownGracefully();
+    }
+
+    @Test
+    public void testPhaseOfRunningTask() throws Exception {
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        final EventLoop loop = new EventLoop(group, false);
+        final List<LoopPhase> phases = new ArrayList<>();
+        final Runnable recordPhase = new Runnable() {
+            public void run() {
+                phases.add( loop.getPhase() );
+            }
+        };
+
+        // keeps the loop alive between tasks
+        RefHandle handle = loop.newHandle( "test" );
+
+        loop.submitUserTask( recordPhase, "io" ).get();
+        loop.scheduleUserTask( recordPhase, 1, TimeUnit.MILLISECONDS ).get();
+        loop.submitUserTask( recordPhase, "dispatch-timers", LoopPhase.TIMERS ).get();
+
+        assertEquals( LoopPhase.POLL, phases.get( 0 ) );
+        assertEquals( LoopPhase.TIMERS, phases.get( 1 ) );
+        assertEquals( LoopPhase.TIMERS, phases.get( 2 ) );
+        assertEquals( LoopPhase.IDLE, loop.getPhase() );
+
+        handle.unref();
+        group.shutdownGracefully();
+    }
+}
@@ -0,0 +1,65 @@
+package io.nodyn.loop;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Bob McWhirter
+ */
+public class HistogramTest {
+
+    @Test
+    public void testPercentilesAreBucketUpperBounds() {
+        Histogram histogram = new Histogram();
+        for (int i = 0; i < 99; ++i) {
+            // 100us, in the bucket below 128us
+            histogram.record( 100000 );
+        }
+        // 10ms
+        histogram.record( 10000000 );
+
+        assertEquals( 100, histogram.getCount() );
+        assertEquals( 0.128, histogram.getPercentile( 50 ), 0.0001 );
+        assertEquals( 0.128, histogram.getPercentile( 99 ), 0.0001 );
+        assertEquals( 10.0, histogram.getPercentile( 100 ), 0.0001 );
+        assertEquals( 10.0, histogram.getMax(), 0.0001 );
+        assertEquals( 0.199, histogram.getMean(), 0.0001 );
+    }
+
+    @Test
+    public void testReset() {
+        Histogram histogram = new Histogram();
+        histogram.record( 5000 );
+        histogram.reset();
+        assertEquals( 0, histogram.getCount() );
+        assertEquals( 0.0, histogram.getPercentile( 99 ), 0.0 );
+    }
+
+    @Test
+    public void testLoopStatsKeepsRunTimesByName() {
+        LoopStats stats = new LoopStats();
+        stats.record( "dispatch", 0, 2000000, 3000000 );
+        stats.record( "timer", 0, 0, 5000000 );
+
+        assertEquals( 2, stats.getTaskCount() );
+        assertEquals( 1.0, stats.runTimeMax( "dispatch" ), 0.0001 );
+        assertEquals( 5.0, stats.runTimeMax( "timer" ), 0.0001 );
+        assertEquals( 2.0, stats.getQueueDelayMax(), 0.0001 );
+        assertEquals( 6.0, stats.getBusyTime(), 0.0001 );
+        assertNull( stats.getRunTime( "check" ) );
+    }
+
+    @Test
+    public void testLoopStatsKeepsCallbacksApartFromTheirTask() {
+        LoopStats stats = new LoopStats();
+        stats.record( "dispatch", 0, 0, 4000000 );
+        stats.recordCallback( "TimerWrap#makeCallbackByIndex", 0, 1000000 );
+        stats.recordCallback( "TCPWrap#connection", 1000000, 4000000 );
+
+        assertEquals( 1, stats.getTaskCount() );
+        assertEquals( 1.0, stats.runTimeMax( "TimerWrap#makeCallbackByIndex" ), 0.0001 );
+        assertEquals( 3.0, stats.runTimeMax( "TCPWrap#connection" ), 0.0001 );
+        assertEquals( 4.0, stats.getBusyTime(), 0.0001 );
+    }
+}
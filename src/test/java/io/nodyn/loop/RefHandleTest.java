@@ -0,0 +1,65 @@
+package io.nodyn.loop;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Bob McWhirter
+ */
+public class RefHandleTest {
+
+    @Test
+    public void testRefAndUnrefAreIdempotent() {
+        Counter counter = new Counter();
+        RefHandle handle = counter.newHandle( "test" );
+        assertEquals( 1, counter.count.get() );
+        handle.ref();
+        assertEquals( 1, counter.count.get() );
+        handle.unref();
+        handle.unref();
+        assertEquals( 0, counter.count.get() );
+        assertEquals( 1, counter.decrements.get() );
+    }
+
+    @Test
+    public void testConcurrentHandles() throws InterruptedException {
+        final Counter counter = new Counter();
+        final CountDownLatch done = new CountDownLatch( 8 );
+        for (int i = 0; i < 8; ++i) {
+            new Thread() {
+                public void run() {
+                    for (int j = 0; j < 10000; ++j) {
+                        counter.newHandle( "task" ).unref();
+                    }
+                    done.countDown();
+                }
+            }.start();
+        }
+        done.await();
+        assertEquals( 0, counter.count.get() );
+        assertEquals( 80000, counter.decrements.get() );
+    }
+
+    private static class Counter implements RefCounted {
+
+        final AtomicInteger count = new AtomicInteger();
+        final AtomicInteger decrements = new AtomicInteger();
+
+        public void incrCount(RefHandle handle) {
+            this.count.incrementAndGet();
+        }
+
+        public void decrCount(RefHandle handle) {
+            this.count.decrementAndGet();
+            this.decrements.incrementAndGet();
+        }
+
+        public RefHandle newHandle(String name) {
+            return new RefHandle( this, name );
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package io.nodyn.loop;
+
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Bob McWhirter
+ */
+public class ShutdownReportTest {
+
+    @Test
+    public void testWaitsForBlockingTasks() {
+        EventLoop loop = new EventLoop(new NioEventLoopGroup(1));
+        final AtomicBoolean done = new AtomicBoolean();
+        loop.submitBlockingTask( BlockingLane.FS, new Runnable() {
+            public void run() {
+                sleep( 50 );
+                done.set( true );
+            }
+        } );
+
+        ShutdownReport report = loop.shutdownGracefully( 5, TimeUnit.SECONDS );
+        assertTrue( done.get() );
+        assertTrue( report.isClean() );
+    }
+
+    @Test
+    public void testRepeatsStagesUntilNothingIsPending() {
+        final EventLoop loop = new EventLoop(new NioEventLoopGroup(1));
+        final AtomicBoolean done = new AtomicBoolean();
+        // blocking work, whose callback queues more blocking work, as fs calls chain
+        loop.submitBlockingTask( BlockingLane.FS, new Runnable() {
+            public void run() {
+                sleep( 20 );
+                loop.submitUserTask( new Runnable() {
+                    public void run() {
+                        loop.submitBlockingTask( BlockingLane.FS, new Runnable() {
+                            public void run() {
+                                sleep( 20 );
+                                done.set( true );
+                            }
+                        } );
+                    }
+                }, "callback" );
+            }
+        } );
+
+        ShutdownReport report = loop.shutdownGracefully( 5, TimeUnit.SECONDS );
+        assertTrue( done.get() );
+        assertTrue( report.isClean() );
+    }
+
+    @Test
+    public void testReportsWhatIsStillPending() {
+        EventLoop loop = new EventLoop(new NioEventLoopGroup(1));
+        final CountDownLatch release = new CountDownLatch( 1 );
+        loop.submitBlockingTask( BlockingLane.CPU, new Runnable() {
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    // done
+                }
+            }
+        } );
+
+        ShutdownReport report = loop.shutdownGracefully( 20, TimeUnit.MILLISECONDS );
+        release.countDown();
+        assertFalse( report.isClean() );
+        assertEquals( 1, report.getPendingBlockingTasks() );
+        assertEquals( 0, report.getPendingWrites() );
+    }
+
+    @Test
+    public void testShutdownAlreadyStarted() throws Exception {
+        final EventLoop loop = new EventLoop(new NioEventLoopGroup(1));
+        final CountDownLatch exited = new CountDownLatch( 1 );
+        final CountDownLatch release = new CountDownLatch( 1 );
+        // as process.exit(): the task shuts the loop down, then blocks in System.exit
+        loop.submitUserTask( new Runnable() {
+            public void run() {
+                loop.shutdown();
+                exited.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    // done
+                }
+            }
+        }, "exit" );
+        assertTrue( exited.await( 5, TimeUnit.SECONDS ) );
+
+        long start = System.nanoTime();
+        ShutdownReport report = loop.shutdownGracefully( 5, TimeUnit.SECONDS );
+        release.countDown();
+        assertTrue( report.isClean() );
+        assertTrue( System.nanoTime() - start < TimeUnit.SECONDS.toNanos( 1 ) );
+    }
+
+    @Test
+    public void testAlreadyShutDown() {
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        EventLoop loop = new EventLoop(group, false);
+        loop.shutdown();
+        assertTrue( loop.shutdownGracefully( 1, TimeUnit.SECONDS ).isClean() );
+        group.shutdownGracefully();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep( millis );
+        } catch (InterruptedException e) {
+            // done
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package io.nodyn.runtime;
 
+import io.nodyn.loop.BlockingPool;
+import io.nodyn.loop.LoopMode;
+import io.nodyn.smalloc.AllocatorType;
 import org.junit.Test;
 
 import java.util.ArrayList;
@@ -50,6 +53,87 @@ public class NodynConfigTest {
         assertTrue( config.getPrint() );
     }
 
+    @Test
+    public void testBufferAllocator() {
+        NodynConfig config = config("--buffer-allocator=pooled-direct foo.js");
+        assertEquals( AllocatorType.POOLED_DIRECT, config.getBufferAllocator() );
+        assertArrayEquals( new String[] { "foo.js" }, config.getExecArgv() );
+    }
+
+    @Test
+    public void testBufferAllocatorDefault() {
+        NodynConfig config = config("foo.js");
+        assertEquals( AllocatorType.UNPOOLED, config.getBufferAllocator() );
+    }
+
+    @Test
+    public void testBufferAllocatorInvalid() {
+        try {
+            config("--buffer-allocator=tacos");
+            fail( "should have thrown" );
+        } catch (IllegalArgumentException e) {
+            // expected and correct
+        }
+    }
+
+    @Test
+    public void testDecodeCache() {
+        assertEquals( 0, config("foo.js").getDecodeCacheSize() );
+        NodynConfig config = config("--decode-cache=4096 foo.js");
+        assertEquals( 4096, config.getDecodeCacheSize() );
+        assertArrayEquals( new String[] { "foo.js" }, config.getExecArgv() );
+    }
+
+    @Test
+    public void testMaxExternalMemory() {
+        assertEquals( 0, config("foo.js").getMaxExternalMemory() );
+        assertEquals( 4096, config("--max-external-memory=4096 foo.js").getMaxExternalMemory() );
+        assertEquals( 512L * 1024 * 1024, config("--max-external-memory=512m foo.js").getMaxExternalMemory() );
+        assertEquals( 2L * 1024 * 1024 * 1024, config("--max-external-memory=2G foo.js").getMaxExternalMemory() );
+    }
+
+    @Test
+    public void testLoopMode() {
+        assertEquals( LoopMode.EXECUTOR, config("foo.js").getLoopMode() );
+        NodynConfig config = config("--loop-mode=pinned foo.js");
+        assertEquals( LoopMode.PINNED, config.getLoopMode() );
+        assertArrayEquals( new String[] { "foo.js" }, config.getExecArgv() );
+    }
+
+    @Test
+    public void testThreadpool() {
+        NodynConfig config = config("--threadpool-size=8 --threadpool-queue=16 --threadpool-reject=caller-runs foo.js");
+        assertEquals( 8, config.getThreadpoolSize() );
+        assertEquals( 16, config.getThreadpoolQueueSize() );
+        assertEquals( BlockingPool.Rejection.CALLER_RUNS, config.getThreadpoolRejection() );
+        assertArrayEquals( new String[] { "foo.js" }, config.getExecArgv() );
+        assertEquals( BlockingPool.Rejection.ABORT, config("foo.js").getThreadpoolRejection() );
+    }
+
+    @Test
+    public void testVirtualThreads() {
+        assertFalse( config("foo.js").isVirtualThreads() );
+        NodynConfig config = config("--virtual-threads foo.js");
+        assertTrue( config.isVirtualThreads() );
+        assertArrayEquals( new String[] { "foo.js" }, config.getExecArgv() );
+    }
+
+    @Test
+    public void testIsolates() {
+        assertEquals( 1, config("foo.js").getIsolates() );
+        NodynConfig config = config("--isolates=4 foo.js");
+        assertEquals( 4, config.getIsolates() );
+        assertArrayEquals( new String[] { "foo.js" }, config.getExecArgv() );
+    }
+
+    @Test
+    public void testDrainTimeout() {
+        assertEquals( 0, config("foo.js").getDrainTimeout() );
+        NodynConfig config = config("--drain-timeout=5000 foo.js");
+        assertEquals( 5000, config.getDrainTimeout() );
+        assertArrayEquals( new String[] { "foo.js" }, config.getExecArgv() );
+    }
+
     private NodynConfig config(String args) {
         StringTokenizer tokens = new StringTokenizer(args);
         List<String> argv = new ArrayList<>();
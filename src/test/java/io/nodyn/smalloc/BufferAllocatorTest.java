@@ -0,0 +1,94 @@
+package io.nodyn.smalloc;
+
+import io.netty.buffer.ByteBuf;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Bob McWhirter
+ */
+public class BufferAllocatorTest {
+
+    @Test
+    public void testLimit() {
+        BufferAllocator allocator = new BufferAllocator( AllocatorType.UNPOOLED, 1024 );
+        assertNotNull( allocator.allocate( 1000 ) );
+        assertNull( allocator.allocate( 100 ) );
+        assertNotNull( allocator.allocate( 24 ) );
+        assertEquals( 1024, allocator.getExternalMemory().get( ExternalMemory.Source.SMALLOC ) );
+    }
+
+    @Test
+    public void testReleasedWithOwner() throws InterruptedException {
+        BufferAllocator allocator = new BufferAllocator( AllocatorType.POOLED_HEAP );
+        Object owner = new Object();
+        ByteBuf buf = allocator.allocate( 64 );
+        allocator.track( owner, buf );
+
+        Object other = new Object();
+        allocator.account( other, allocator.allocate( 16 ), ExternalMemory.Source.SOCKET );
+        assertEquals( 64 + 16 + 16, allocator.getExternalMemory().getTotal() );
+
+        owner = null;
+        for (int i = 0; i < 50 && buf.refCnt() > 0; ++i) {
+            System.gc();
+            Thread.sleep( 10 );
+            allocator.reap();
+        }
+        assertEquals( 0, buf.refCnt() );
+        assertEquals( 16, allocator.getExternalMemory().get( ExternalMemory.Source.SMALLOC ) );
+        assertEquals( 16, allocator.getExternalMemory().get( ExternalMemory.Source.SOCKET ) );
+        assertNotNull( other );
+    }
+
+    @Test
+    public void testCollectsOwnersBeforeFailing() throws InterruptedException {
+        BufferAllocator allocator = new BufferAllocator( AllocatorType.POOLED_HEAP, 1024 );
+        allocator.setCollectOnLimit( true );
+        Object owner = new Object();
+        ByteBuf buf = allocator.allocate( 1024 );
+        allocator.track( owner, buf );
+
+        // nothing reaped yet, so only the allocations themselves can free the memory
+        owner = null;
+        ByteBuf next = null;
+        for (int i = 0; i < 50 && next == null; ++i) {
+            next = allocator.allocate( 1024 );
+            if ( next == null ) {
+                // the collected owner is queued by another thread
+                Thread.sleep( 10 );
+            }
+        }
+        assertNotNull( next );
+        assertEquals( 1024, allocator.getExternalMemory().get( ExternalMemory.Source.SMALLOC ) );
+        assertEquals( 0, allocator.trackedCount() );
+    }
+
+    @Test
+    public void testRetainingReaps() throws InterruptedException {
+        BufferAllocator allocator = new BufferAllocator( AllocatorType.POOLED_HEAP );
+        ByteBuf buf = allocator.allocate( 64 );
+        allocator.track( new Object(), buf );
+
+        // never allocating again, as when slicing
+        for (int i = 0; i < 50 && allocator.trackedCount() > 1; ++i) {
+            System.gc();
+            Thread.sleep( 10 );
+            allocator.retain( new Object(), buf );
+        }
+        assertTrue( allocator.trackedCount() <= 2 );
+    }
+
+    @Test
+    public void testFailsWithoutWaiting() {
+        BufferAllocator allocator = new BufferAllocator( AllocatorType.POOLED_HEAP, 1024 );
+        Object owner = new Object();
+        allocator.track( owner, allocator.allocate( 1024 ) );
+
+        long startedAt = System.nanoTime();
+        assertNull( allocator.allocate( 1024 ) );
+        assertTrue( System.nanoTime() - startedAt < 100000000L );
+        assertNotNull( owner );
+    }
+}
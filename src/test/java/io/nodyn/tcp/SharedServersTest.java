@@ -0,0 +1,172 @@
+package io.nodyn.tcp;
+
+import io.netty.channel.ChannelFuture;
+import io.nodyn.Callback;
+import io.nodyn.CallbackResult;
+import io.nodyn.ExitHandler;
+import io.nodyn.NodeProcess;
+import io.nodyn.TestNodyn;
+import io.nodyn.loop.RefHandle;
+import io.nodyn.runtime.NodynConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.VertxFactory;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Bob McWhirter
+ */
+public class SharedServersTest {
+
+    private static final String ADDR = "127.0.0.1";
+
+    private Vertx vertx;
+    private SharedServers sharedServers;
+    private Isolate first;
+    private Isolate second;
+
+    private final List<Socket> sockets = new ArrayList<>();
+    // the isolate each connection was handed to, in order
+    private final List<Integer> accepted = Collections.synchronizedList(new ArrayList<Integer>());
+    private CountDownLatch connections;
+
+    @Before
+    public void setUp() {
+        this.vertx = VertxFactory.newVertx();
+        this.sharedServers = new SharedServers();
+        this.first = new Isolate(0);
+        this.second = new Isolate(1);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (Socket socket : this.sockets) {
+            socket.close();
+        }
+        this.first.handle.unref();
+        this.second.handle.unref();
+        this.vertx.stop();
+    }
+
+    @Test
+    public void testHandsConnectionsOutRoundRobin() throws Exception {
+        ChannelFuture future = this.first.listen(0);
+        assertSame(future, this.second.listen(0));
+        assertTrue(future.await(5, TimeUnit.SECONDS));
+        assertTrue(future.isSuccess());
+
+        // each delivered on its own isolate's loop, so only the counts are certain
+        connect(future, 4);
+        assertEquals(2, Collections.frequency(this.accepted, 0));
+        assertEquals(2, Collections.frequency(this.accepted, 1));
+    }
+
+    @Test
+    public void testLeavesOnIsolateExit() throws Exception {
+        ChannelFuture future = this.first.listen(0);
+        this.second.listen(0);
+        assertTrue(future.await(5, TimeUnit.SECONDS));
+
+        this.first.nodyn.reallyExit(0);
+        connect(future, 3);
+        assertEquals(3, Collections.frequency(this.accepted, 1));
+
+        // still open for the isolate left listening
+        assertTrue(future.channel().isOpen());
+    }
+
+    @Test
+    public void testClosesWithTheLastListener() throws Exception {
+        ChannelFuture future = this.first.listen(0);
+        this.second.listen(0);
+        assertTrue(future.await(5, TimeUnit.SECONDS));
+
+        this.sharedServers.close(this.first.wrap);
+        assertTrue(future.channel().isOpen());
+
+        this.sharedServers.close(this.second.wrap);
+        assertTrue(future.channel().closeFuture().await(5, TimeUnit.SECONDS));
+
+        // a new socket, rather than the closed one
+        ChannelFuture next = this.first.listen(0);
+        assertNotSame(future, next);
+        assertTrue(next.await(5, TimeUnit.SECONDS));
+        assertTrue(next.isSuccess());
+        this.sharedServers.close(this.first.wrap);
+    }
+
+    @Test
+    public void testFailedBindIsNotShared() throws Exception {
+        ServerSocket taken = new ServerSocket(0, 1, new InetSocketAddress(ADDR, 0).getAddress());
+        int port = taken.getLocalPort();
+        ChannelFuture failed;
+        try {
+            failed = this.first.listen(port);
+            assertTrue(failed.await(5, TimeUnit.SECONDS));
+            assertFalse(failed.isSuccess());
+        } finally {
+            taken.close();
+        }
+
+        // binds again, rather than joining the failed socket
+        ChannelFuture future = this.second.listen(port);
+        assertNotSame(failed, future);
+        assertTrue(future.await(5, TimeUnit.SECONDS));
+        assertTrue(future.isSuccess());
+        this.sharedServers.close(this.second.wrap);
+    }
+
+    private void connect(ChannelFuture future, int count) throws Exception {
+        this.connections = new CountDownLatch(count);
+        int port = ((InetSocketAddress) future.channel().localAddress()).getPort();
+        for (int i = 0; i < count; ++i) {
+            this.sockets.add(new Socket(ADDR, port));
+        }
+        assertTrue(this.connections.await(5, TimeUnit.SECONDS));
+        assertEquals(count, this.accepted.size());
+    }
+
+    private class Isolate implements ExitHandler {
+
+        private final TestNodyn nodyn;
+        private final TCPWrap wrap;
+        private final RefHandle handle;
+
+        Isolate(final int id) {
+            this.nodyn = new TestNodyn(new NodynConfig(), vertx);
+            this.nodyn.setSharedServers(sharedServers);
+            this.nodyn.setIsolateId(id);
+            this.nodyn.setExitHandler(this);
+            // keeps the loop alive to deliver connections
+            this.handle = this.nodyn.getEventLoop().newHandle("test");
+            this.wrap = new TCPWrap(new NodeProcess(this.nodyn));
+            this.wrap.on("connection", new Callback() {
+                public Object call(CallbackResult result) {
+                    accepted.add(id);
+                    connections.countDown();
+                    return null;
+                }
+            });
+        }
+
+        ChannelFuture listen(int port) {
+            return sharedServers.listen(this.wrap, this.nodyn.getEventLoop().getEventLoopGroup(), ADDR, port);
+        }
+
+        @Override
+        public void reallyExit(int exitCode) {
+        }
+    }
+}
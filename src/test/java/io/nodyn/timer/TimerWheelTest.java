@@ -0,0 +1,189 @@
+package io.nodyn.timer;
+
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.nodyn.loop.EventLoop;
+import io.nodyn.loop.RefHandle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Bob McWhirter
+ */
+public class TimerWheelTest {
+
+    private NioEventLoopGroup group;
+    private EventLoop loop;
+    private RefHandle handle;
+    private TimerWheel wheel;
+
+    private final List<String> fired = Collections.synchronizedList(new ArrayList<String>());
+
+    @Before
+    public void setUp() {
+        this.group = new NioEventLoopGroup(1);
+        this.loop = new EventLoop(this.group, false);
+        // keeps the loop alive between tasks
+        this.handle = this.loop.newHandle("test");
+        this.wheel = new TimerWheel(this.loop);
+    }
+
+    @After
+    public void tearDown() {
+        this.handle.unref();
+        this.group.shutdownGracefully();
+    }
+
+    @Test
+    public void testExpiresInDeadlineOrder() throws Exception {
+        final CountDownLatch done = new CountDownLatch(3);
+        onLoop(new Runnable() {
+            public void run() {
+                wheel.updateTime();
+                wheel.add(timer("c", done), 30);
+                wheel.add(timer("a", done), 5);
+                wheel.add(timer("b", done), 15);
+            }
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("a", "b", "c"), this.fired);
+        assertEquals(0, size());
+    }
+
+    @Test
+    public void testRepeats() throws Exception {
+        final CountDownLatch done = new CountDownLatch(3);
+        final TimerWheel.Timer repeating = timer("tick", done);
+        repeating.repeat = 5;
+        onLoop(new Runnable() {
+            public void run() {
+                wheel.updateTime();
+                wheel.add(repeating, 5);
+            }
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        onLoop(new Runnable() {
+            public void run() {
+                // still scheduled for its next repeat
+                assertTrue(repeating.scheduled);
+                wheel.remove(repeating);
+            }
+        });
+        assertEquals(0, size());
+    }
+
+    @Test
+    public void testRemoveDuringExpire() throws Exception {
+        final CountDownLatch done = new CountDownLatch(2);
+        final TimerWheel.Timer[] timers = new TimerWheel.Timer[3];
+        timers[0] = new TimerWheel.Timer() {
+            void expired() {
+                fired.add("first");
+                // due in the same slot, and next in its list
+                wheel.remove(timers[1]);
+                done.countDown();
+            }
+        };
+        timers[1] = timer("removed", done);
+        timers[2] = timer("last", done);
+        onLoop(new Runnable() {
+            public void run() {
+                wheel.updateTime();
+                wheel.add(timers[2], 20);
+                wheel.add(timers[1], 10);
+                wheel.add(timers[0], 10);
+            }
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("first", "last"), this.fired);
+        assertFalse(timers[1].scheduled);
+        assertEquals(0, size());
+    }
+
+    @Test
+    public void testTimeoutLongerThanARotation() throws Exception {
+        final CountDownLatch done = new CountDownLatch(2);
+        final long[] addedAt = new long[1];
+        final long[] firedAt = new long[1];
+        onLoop(new Runnable() {
+            public void run() {
+                addedAt[0] = wheel.updateTime();
+                // shares a slot with a timer due a rotation earlier
+                wheel.add(timer("near", done), 100);
+                wheel.add(new TimerWheel.Timer() {
+                    void expired() {
+                        firedAt[0] = wheel.now();
+                        fired.add("far");
+                        done.countDown();
+                    }
+                }, 100 + TimerWheel.SLOTS);
+            }
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("near", "far"), this.fired);
+        assertTrue(firedAt[0] - addedAt[0] >= 100 + TimerWheel.SLOTS);
+    }
+
+    @Test
+    public void testCatchesUpAfterAStall() throws Exception {
+        final CountDownLatch done = new CountDownLatch(3);
+        onLoop(new Runnable() {
+            public void run() {
+                wheel.updateTime();
+                wheel.add(timer("a", done), 5);
+                wheel.add(timer("b", done), 10);
+                wheel.add(timer("c", done), 15);
+                // nothing can expire until this returns, long after all are due
+                sleep(50);
+            }
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("a", "b", "c"), this.fired);
+        assertEquals(0, size());
+    }
+
+    private TimerWheel.Timer timer(final String name, final CountDownLatch done) {
+        return new TimerWheel.Timer() {
+            void expired() {
+                fired.add(name);
+                done.countDown();
+            }
+        };
+    }
+
+    private int size() throws Exception {
+        final int[] size = new int[1];
+        onLoop(new Runnable() {
+            public void run() {
+                size[0] = wheel.size();
+            }
+        });
+        return size[0];
+    }
+
+    private void onLoop(Runnable task) throws Exception {
+        this.loop.submitUserTask(task, "test").get();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            // done
+        }
+    }
+}
@@ -185,6 +185,44 @@ describe("Buffer", function() {
     }
   });
 
+  it('should copy between overlapping regions of the same buffer', function() {
+    var b = new Buffer('abcdefgh');
+    expect(b.copy(b, 2, 0, 6)).toBe(6);
+    expect(b.toString()).toBe('ababcdef');
+  });
+
+  it('should fill with a multi-byte string pattern', function() {
+    var b = new Buffer(7);
+    b.fill('ab\u00bd');
+    expect(b.toString('hex')).toBe('6162c2bd6162c2');
+  });
+
+  it('should fill with zeros given an empty string', function() {
+    var b = new Buffer('abcd');
+    b.fill('');
+    expect(b.toString('hex')).toBe('00000000');
+  });
+
+  it('should compare and test buffers for equality', function() {
+    var a = new Buffer('abcdefghij');
+    var b = new Buffer('abcdefghik');
+    expect(Buffer.compare(a, b)).toBe(-1);
+    expect(Buffer.compare(b, a)).toBe(1);
+    expect(Buffer.compare(a, new Buffer('abcdefghij'))).toBe(0);
+    expect(a.equals(new Buffer('abcdefghij'))).toBe(true);
+    expect(a.equals(new Buffer('abc'))).toBe(false);
+  });
+
+  it('should find bytes, strings and buffers with indexOf', function() {
+    var b = new Buffer('the quick brown fox jumps');
+    expect(b.indexOf(113)).toBe(4);
+    expect(b.indexOf('fox')).toBe(16);
+    expect(b.indexOf(new Buffer('jumps'))).toBe(20);
+    expect(b.indexOf('o', 13)).toBe(17);
+    expect(b.indexOf('o', -5)).toBe(-1);
+    expect(b.indexOf('cat')).toBe(-1);
+  });
+
   it('should pass testBufferCopyTypeError', function() {
     try {
       var source = new Buffer(4);
@@ -211,6 +249,26 @@ describe("Buffer", function() {
     }
   });
 
+  it('should not split a multi-byte character when truncating a utf8 write', function() {
+    var b = new Buffer(4);
+    b.fill(0);
+    expect(b.write('a\u00bd\u00bc', 0, 4, 'utf8')).toBe(3);
+    expect(b.toString('utf8', 0, 3)).toBe('a\u00bd');
+    expect(b[3]).toBe(0);
+  });
+
+  it('should write ascii and ucs2 at the given offset', function() {
+    var b = new Buffer(6);
+    b.fill(0);
+    expect(b.write('ab', 1, 'ascii')).toBe(2);
+    expect(b[0]).toBe(0);
+    expect(b[1]).toBe(97);
+    expect(b[2]).toBe(98);
+    expect(b.write('c', 4, 'ucs2')).toBe(2);
+    expect(b[4]).toBe(99);
+    expect(b[5]).toBe(0);
+  });
+
   xit('should pass testBufferUtf8WriteWithOffset', function() {
     var b = new Buffer(70);
     b.fill(0);
@@ -318,6 +376,30 @@ describe("Buffer", function() {
     expect(Buffer.concat([]).length).toBe(0);
   });
 
+  it('should concat many chunks, honouring a total length', function() {
+    var chunks = [ new Buffer('taco'), new Buffer(''), new Buffer('s are '), new Buffer('tasty') ];
+    expect(Buffer.concat(chunks).toString()).toBe('tacos are tasty');
+    expect(Buffer.concat(chunks, 9).toString()).toBe('tacos are');
+    var z = Buffer.concat(chunks, 17);
+    expect(z.length).toBe(17);
+    expect(z.slice(0, 15).toString()).toBe('tacos are tasty');
+  });
+
+  it('should copy the chunks of a concat', function() {
+    var x = new Buffer('abc');
+    var z = Buffer.concat([x, new Buffer('def')]);
+    x[0] = 0x41;
+    expect(z.toString()).toBe('abcdef');
+  });
+
+  it('should share memory between a concatShared and its chunks', function() {
+    var x = new Buffer('abc');
+    var z = Buffer.concatShared([x, new Buffer('def')]);
+    x[0] = 0x41;
+    expect(z.toString()).toBe('Abcdef');
+    expect(Buffer.concatShared([x, new Buffer('def')], 4).toString()).toBe('Abcd');
+  });
+
   it( 'should provide for live/linked slices', function() {
     var buf = new Buffer( "original" );
     var slice = buf.slice();
@@ -330,6 +412,21 @@ describe("Buffer", function() {
 
   describe( "reading and writing", function() {
 
+    it('should wrap indexed writes to a byte and track the written length', function() {
+      var buff = new Buffer(300);
+      for ( var i = 0 ; i < buff.length ; ++i ) {
+        buff[i] = i;
+      }
+      expect( buff[255] ).toBe( 255 );
+      expect( buff[256] ).toBe( 0 );
+      expect( buff._nettyBuffer().writerIndex() ).toBe( 300 );
+
+      buff[0] = -1;
+      buff[1] = 257.5;
+      expect( buff[0] ).toBe( 255 );
+      expect( buff[1] ).toBe( 1 );
+    });
+
     it('should be able to read/write one byte as unsigned integers', function() {
       var buff = new Buffer(4);
       buff[0] = 0x3;
@@ -513,6 +610,37 @@ describe("Buffer", function() {
       expect( delta ).toBeLessThan( 1 );
     });
 
+    it( "should write doubles LE byte-for-byte reversed from BE", function() {
+      var be = new Buffer(8);
+      var le = new Buffer(8);
+      expect( be.writeDoubleBE( 39.99, 0 ) ).toBe( 8 );
+      expect( le.writeDoubleLE( 39.99, 0 ) ).toBe( 8 );
+      for ( var i = 0 ; i < 8 ; ++i ) {
+        expect( le[i] ).toBe( be[7-i] );
+      }
+      expect( le.readDoubleLE(0) ).toBe( 39.99 );
+    });
+
+    it( "should read and write variable width integers", function() {
+      var buf = new Buffer(6);
+      expect( buf.writeUIntBE( 0x123456789abc, 0, 6 ) ).toBe( 6 );
+      expect( buf.toString('hex') ).toBe( '123456789abc' );
+      expect( buf.readUIntLE( 0, 6 ) ).toBe( 0xbc9a78563412 );
+      expect( buf.readUIntBE( 1, 3 ) ).toBe( 0x345678 );
+
+      buf.writeIntLE( -2, 0, 3 );
+      expect( buf.readIntLE( 0, 3 ) ).toBe( -2 );
+      expect( buf.readUIntLE( 0, 3 ) ).toBe( 0xfffffe );
+    });
+
+    it( "should range check typed writes unless noAssert", function() {
+      var buf = new Buffer(4);
+      expect( function() { buf.writeUInt8( 256, 0 ); } ).toThrow();
+      expect( function() { buf.writeUInt32BE( 1, 1 ); } ).toThrow();
+      expect( buf.writeInt32LE( -1, 0 ) ).toBe( 4 );
+      expect( buf.readUInt32LE(0) ).toBe( 0xffffffff );
+    });
+
   });
 
   it( "should support base64 on toString", function(){
@@ -201,4 +201,13 @@ describe('process', function() {
     });
 
   });
+
+  describe('loop_stats binding', function() {
+    it('should report queue delay and run time by task name', function() {
+      var stats = process.binding('loop_stats').getStats();
+      expect(stats.queueDelay.count > 0).toBe(true);
+      expect(stats.utilization >= 0 && stats.utilization <= 1).toBe(true);
+      expect(typeof stats.runTime).toBe('object');
+    });
+  });
 });